@@ -153,4 +153,51 @@ CREATE TABLE carts(
 
 ALTER TABLE carts ADD COLUMN updated_at DATETIME DEFAULT CURRENT_TIMESTAMP;
 
-    
\ No newline at end of file
+    
+CREATE INDEX idx_invalidated_tokens_expiry_time ON invalidated_tokens (expiry_time);
+
+CREATE INDEX idx_products_created_at_id ON products (created_at, id);
+CREATE INDEX idx_orders_created_at_id ON orders (created_at, id);
+CREATE INDEX idx_orders_user_id_created_at_id ON orders (user_id, created_at, id);
+CREATE INDEX idx_users_created_at_id ON users (created_at, id);
+
+ALTER TABLE order_details ADD COLUMN is_stock_flushed BOOLEAN NOT NULL DEFAULT TRUE;
+CREATE INDEX idx_order_details_is_stock_flushed_id ON order_details (is_stock_flushed, id);
+
+-- Gia trong gio hang tinh luc doc (cart.pricing-mode = LAZY):
+-- 1. cho phep NULL truoc khi bat LAZY (ban cu van ghi gia, ban moi ghi NULL)
+ALTER TABLE carts MODIFY price FLOAT NULL, MODIFY total_money FLOAT NULL;
+-- 2. deploy voi cart.pricing-mode = LAZY tren moi instance
+-- 3. khi khong con instance STORED nao, bo 2 cot (va 2 field trong Cart):
+-- ALTER TABLE carts DROP COLUMN price, DROP COLUMN total_money;
+-- Quay lai STORED truoc buoc 3: dien lai gia cho cac dong NULL
+-- UPDATE carts c JOIN products p ON p.id = c.product_id
+--     SET c.price = p.price, c.total_money = p.price * c.quantity WHERE c.price IS NULL;
+
+-- upload.storage-mode = CONTENT_ADDRESSED: truoc khi xoa file kiem tra con anh/thumbnail nao tro toi
+CREATE INDEX idx_product_images_image_url ON product_images (image_url);
+CREATE INDEX idx_products_thumbnail ON products (thumbnail);
+
+-- Ban thu nho cua anh san pham (ImageVariant), NULL = chua tao; ImageVariantService quet va tao bu
+ALTER TABLE product_images
+    ADD COLUMN thumbnail_url VARCHAR(300) NULL,
+    ADD COLUMN detail_url VARCHAR(300) NULL,
+    ADD COLUMN zoom_url VARCHAR(300) NULL;
+ALTER TABLE products ADD COLUMN list_thumbnail VARCHAR(300) NULL;
+CREATE INDEX idx_product_images_thumbnail_url ON product_images (thumbnail_url);
+CREATE INDEX idx_product_images_detail_url ON product_images (detail_url);
+CREATE INDEX idx_product_images_zoom_url ON product_images (zoom_url);
+CREATE INDEX idx_products_list_thumbnail ON products (list_thumbnail);
+
+-- Hang doi xoa file (FileDeletionService): ghi cung transaction voi lenh xoa san pham
+CREATE TABLE file_deletions (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    file_name VARCHAR(300) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME NOT NULL,
+    last_error VARCHAR(500),
+    created_at DATETIME NOT NULL
+);
+CREATE INDEX idx_file_deletions_next_attempt_at_id ON file_deletions (next_attempt_at, id);
+-- quet file mo coi bo qua file da nam trong hang doi
+CREATE INDEX idx_file_deletions_file_name ON file_deletions (file_name);
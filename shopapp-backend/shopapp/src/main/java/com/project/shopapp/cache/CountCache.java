@@ -0,0 +1,39 @@
+package com.project.shopapp.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Cache ket qua COUNT cua cac query tim kiem, key la bo loc (signature) cua request
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CountCache {
+    Cache<List<?>, Long> counts;
+
+    public CountCache(
+            @Value("${query.count-cache.maximum-size:1000}") long maximumSize,
+            @Value("${query.count-cache.ttl:30}") long ttl,
+            MeterRegistry meterRegistry) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, "queryCounts");
+    }
+
+    // signature dung Arrays.asList de chap nhan gia tri null cua bo loc
+    public long getCount(List<?> signature, LongSupplier counter) {
+        return counts.get(signature, key -> counter.getAsLong());
+    }
+}
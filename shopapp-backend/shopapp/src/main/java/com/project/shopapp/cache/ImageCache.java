@@ -0,0 +1,57 @@
+package com.project.shopapp.cache;
+
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Anh da upload theo ten file: kich thuoc + content type cho moi file duoc doc,
+// them noi dung cho file nho (<= max-file-size). Gioi han theo tong so byte, file it dung bi day ra truoc.
+// File khong bao gio bi ghi de (ten = UUID hoac hash noi dung) nen khong can ttl, chi xoa khi file bi xoa
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ImageCache {
+    // uoc luong cho entry chi co metadata
+    static final int METADATA_WEIGHT = 128;
+
+    Cache<String, CachedImage> images;
+    long maxFileSize;
+
+    public ImageCache(
+            @Value("${image.cache.maximum-weight:67108864}") long maximumWeight,
+            @Value("${image.cache.max-file-size:65536}") long maxFileSize,
+            MeterRegistry meterRegistry) {
+        this.maxFileSize = maxFileSize;
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((String fileName, CachedImage image) ->
+                        image.content() == null ? METADATA_WEIGHT : image.content().length + METADATA_WEIGHT)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, images, "images");
+    }
+
+    public CachedImage get(String fileName, Function<String, CachedImage> loader) {
+        return images.get(fileName, loader);
+    }
+
+    // file co kich thuoc nay thi giu noi dung trong bo nho
+    public boolean isCacheable(long length) {
+        return length <= maxFileSize;
+    }
+
+    public void invalidate(String fileName) {
+        images.invalidate(fileName);
+    }
+
+    // content = null: file lon, doc tu dia moi lan
+    public record CachedImage(Path path, long length, String contentType, String eTag, byte[] content) {}
+}
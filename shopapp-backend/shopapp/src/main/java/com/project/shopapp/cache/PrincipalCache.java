@@ -0,0 +1,108 @@
+package com.project.shopapp.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.shopapp.entity.Role;
+import com.project.shopapp.entity.User;
+import com.project.shopapp.exception.AppException;
+import com.project.shopapp.exception.ErrorCode;
+import com.project.shopapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+// Thong tin user dang dang nhap (id, trang thai, role) theo so dien thoai:
+// 1 request chi tra 1 lan (luu vao request attribute), cac request sau dung cache chung ttl ngan.
+// Xoa cache chi co tac dung tren instance hien tai, instance khac thay thay doi sau toi da ttl
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PrincipalCache {
+    static final String REQUEST_ATTRIBUTE = PrincipalCache.class.getName() + ".";
+
+    UserRepository userRepository;
+
+    // ca ket qua "khong ton tai" cung duoc cache (Optional.empty)
+    Cache<String, Optional<Principal>> principals;
+
+    public PrincipalCache(
+            UserRepository userRepository,
+            @Value("${security.principal-cache.maximum-size:10000}") long maximumSize,
+            @Value("${security.principal-cache.ttl:30}") long ttl,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+    }
+
+    @SuppressWarnings("unchecked")
+    public Optional<Principal> get(String phoneNumber) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return principals.get(phoneNumber, this::load);
+
+        String key = REQUEST_ATTRIBUTE + phoneNumber;
+        Optional<Principal> principal =
+                (Optional<Principal>) attributes.getAttribute(key, RequestAttributes.SCOPE_REQUEST);
+
+        if (principal == null) {
+            principal = principals.get(phoneNumber, this::load);
+            attributes.setAttribute(key, principal, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return principal;
+    }
+
+    // user cua request hien tai
+    public Principal getCurrent() {
+        return get(SecurityContextHolder.getContext().getAuthentication().getName())
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+    }
+
+    // user khong ton tai thi khong tinh la bi khoa (giong existsByPhoneNumberAndIsActive(phoneNumber, false))
+    public boolean isDeactivated(String phoneNumber) {
+        return get(phoneNumber).map(principal -> !principal.active()).orElse(false);
+    }
+
+    public void invalidate(String phoneNumber) {
+        principals.invalidate(phoneNumber);
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null)
+            attributes.removeAttribute(REQUEST_ATTRIBUTE + phoneNumber, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    // chi co id (vd. xoa user): quet cache, request attribute het han cung request
+    public void invalidate(Long userId) {
+        principals.asMap().values().removeIf(principal -> principal.isPresent()
+                && principal.get().id().equals(userId));
+    }
+
+    private Optional<Principal> load(String phoneNumber) {
+        return userRepository.findByPhoneNumber(phoneNumber).map(Principal::of);
+    }
+
+    public record Principal(Long id, String phoneNumber, boolean active, Set<String> roles) {
+        static Principal of(User user) {
+            Set<String> roles = user.getRoles() == null
+                    ? Set.of()
+                    : user.getRoles().stream().map(Role::getName).collect(Collectors.toUnmodifiableSet());
+
+            return new Principal(user.getId(), user.getPhoneNumber(), Boolean.TRUE.equals(user.getIsActive()), roles);
+        }
+    }
+}
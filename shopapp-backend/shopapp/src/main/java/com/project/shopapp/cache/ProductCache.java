@@ -0,0 +1,194 @@
+package com.project.shopapp.cache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.project.shopapp.dto.response.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ProductCache {
+    Cache<Long, ProductResponse> products;
+
+    // chi cache trang dau cua danh sach (theo keyword + size)
+    Cache<ListingKey, Page<ProductResponse>> firstPages;
+
+    // Moc thay doi (epoch ms) cho ETag/Last-Modified, tang moi lan cache bi xoa (tuc du lieu da doi).
+    // Gia tri san cho moi san pham = luc khoi dong (hoac lan xoa toan bo gan nhat): sau restart client
+    // phai tai lai 1 lan thay vi nhan 304 sai cho thay doi xay ra truoc restart.
+    // Moc chi biet thay doi tren instance nay: moi version lay them dau cua so hien tai (dai bang listing-ttl,
+    // giong nhau tren moi instance), nen ghi tren instance khac chi bi 304 sai toi da 1 cua so
+    long versionWindow;
+    AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+
+    // qua 1 cua so thi dau cua so da lon hon moc, xoa duoc
+    Cache<Long, Long> productsChangedAt;
+    Cache<Long, Long> imagesChangedAt;
+
+    @NonFinal
+    volatile long allChangedAt = clock.get();
+
+    @NonFinal
+    volatile long catalogChangedAt = clock.get();
+
+    // moc lon nhat bi day ra vi qua maximum-size truoc khi het cua so: version khong duoc lui lai
+    @NonFinal
+    volatile long evictedChangedAt = 0;
+
+    public ProductCache(
+            @Value("${product.cache.maximum-size:10000}") long maximumSize,
+            @Value("${product.cache.ttl:600}") long ttl,
+            @Value("${product.cache.listing-maximum-size:1000}") long listingMaximumSize,
+            @Value("${product.cache.listing-ttl:60}") long listingTtl,
+            MeterRegistry meterRegistry) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .recordStats()
+                .build();
+
+        this.firstPages = Caffeine.newBuilder()
+                .maximumSize(listingMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(listingTtl))
+                .recordStats()
+                .build();
+
+        this.versionWindow = Math.max(Duration.ofSeconds(listingTtl).toMillis(), 1);
+        this.productsChangedAt = changedAtCache(maximumSize);
+        this.imagesChangedAt = changedAtCache(maximumSize);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "products");
+        CaffeineCacheMetrics.monitor(meterRegistry, firstPages, "productListings");
+    }
+
+    public ProductResponse getProduct(Long productId, Supplier<ProductResponse> loader) {
+        return products.get(productId, id -> loader.get());
+    }
+
+    public Page<ProductResponse> getFirstPage(String keyword, int size, Supplier<Page<ProductResponse>> loader) {
+        return firstPages.get(new ListingKey(keyword == null ? "" : keyword, size), key -> loader.get());
+    }
+
+    public void evictProduct(Long productId) {
+        evictProducts(List.of(productId));
+    }
+
+    // doi transaction commit xong moi xoa, tranh request khac nap lai du lieu cu
+    public void evictProducts(Collection<Long> productIds) {
+        afterCommit(() -> {
+            products.invalidateAll(productIds);
+            firstPages.invalidateAll();
+
+            long now = tick();
+            productIds.forEach(productId -> productsChangedAt.put(productId, now));
+            catalogChangedAt = now;
+        });
+    }
+
+    public void evictAll() {
+        afterCommit(() -> {
+            products.invalidateAll();
+            firstPages.invalidateAll();
+
+            long now = tick();
+            allChangedAt = now;
+            catalogChangedAt = now;
+            productsChangedAt.invalidateAll();
+            imagesChangedAt.invalidateAll();
+        });
+    }
+
+    public void evictListings() {
+        afterCommit(() -> {
+            firstPages.invalidateAll();
+            catalogChangedAt = tick();
+        });
+    }
+
+    // anh khong nam trong ProductResponse: chi doi version cua danh sach anh
+    public void evictImages(Long productId) {
+        afterCommit(() -> imagesChangedAt.put(productId, tick()));
+    }
+
+    // updatedAt chi chinh xac toi giay va khong doi khi tru kho -> lay them moc thay doi cua cache
+    public long getLastModified(ProductResponse product) {
+        long changedAt = Math.max(sharedVersion(), changedAt(productsChangedAt, product.getId()));
+
+        return Math.max(changedAt, toEpochMilli(product.getUpdatedAt()));
+    }
+
+    // chung cho moi trang danh sach san pham
+    public long getCatalogLastModified() {
+        return Math.max(catalogChangedAt, windowStart());
+    }
+
+    public long getImagesLastModified(Long productId) {
+        return Math.max(sharedVersion(), changedAt(imagesChangedAt, productId));
+    }
+
+    private long sharedVersion() {
+        return Math.max(Math.max(allChangedAt, evictedChangedAt), windowStart());
+    }
+
+    private long windowStart() {
+        long now = System.currentTimeMillis();
+        return now - now % versionWindow;
+    }
+
+    private Cache<Long, Long> changedAtCache(long maximumSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(versionWindow))
+                .<Long, Long>evictionListener((productId, changedAt, cause) -> {
+                    if (cause == RemovalCause.SIZE) evictedChangedAt = Math.max(evictedChangedAt, changedAt);
+                })
+                .build();
+    }
+
+    private static long changedAt(Cache<Long, Long> changes, Long productId) {
+        Long changedAt = changes.getIfPresent(productId);
+        return changedAt != null ? changedAt : 0;
+    }
+
+    // tang dan nghiem ngat: 2 lan doi trong cung 1 ms van ra 2 version khac nhau
+    private long tick() {
+        return clock.accumulateAndGet(System.currentTimeMillis(), (last, now) -> Math.max(last + 1, now));
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    record ListingKey(String keyword, int size) {}
+}
@@ -0,0 +1,162 @@
+package com.project.shopapp.cache;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.project.shopapp.entity.Category;
+import com.project.shopapp.entity.Role;
+import com.project.shopapp.repository.CategoryRepository;
+import com.project.shopapp.repository.RoleRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Role va category (it thay doi): nap toan bo luc khoi dong vao 1 snapshot bat bien,
+// moi lan ghi qua RoleService/CategoryService thi nap lai va thay ca snapshot 1 lan.
+// Tra ve ban sao entity (chi id + name) de noi goi gan vao quan he ma khong sua duoc snapshot.
+// Khong thay trong snapshot (vd. vua tao tren instance khac) thi doc DB roi nap lai
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class ReferenceDataCache {
+    RoleRepository roleRepository;
+    CategoryRepository categoryRepository;
+
+    Lock reloadLock = new ReentrantLock();
+
+    @NonFinal
+    volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        // loi thi snapshot rong: moi lan tra cuu doc DB cho den lan nap sau
+        if (tryReload())
+            log.info(
+                    "Reference data loaded {} roles, {} categories",
+                    snapshot.rolesByName().size(),
+                    snapshot.categories().size());
+    }
+
+    // instance khac ghi thi instance nay chi thay sau lan nap dinh ky
+    @Scheduled(
+            fixedDelayString = "${reference-data.refresh-interval:300000}",
+            initialDelayString = "${reference-data.refresh-interval:300000}")
+    public void reload() {
+        // lock thay vi synchronized: virtual thread cho JDBC trong synchronized giu luon carrier thread (JDK 21)
+        reloadLock.lock();
+        try {
+            List<Role> roles = roleRepository.findAll();
+            List<Category> categories = categoryRepository.findAll().stream()
+                    .sorted(Comparator.comparing(Category::getId))
+                    .toList();
+
+            // nap lai ma category khong doi thi giu version cu, client van nhan 304
+            Snapshot current = snapshot;
+            long categoriesChangedAt = names(categories).equals(names(current.categories()))
+                    ? current.categoriesChangedAt()
+                    : System.currentTimeMillis();
+
+            snapshot = new Snapshot(
+                    roles.stream()
+                            .collect(Collectors.toUnmodifiableMap(Role::getName, Function.identity(), (a, b) -> a)),
+                    categories.stream().collect(Collectors.toUnmodifiableMap(Category::getId, Function.identity())),
+                    categories,
+                    categoriesChangedAt);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    // goi tu service sau khi ghi: transaction commit xong moi nap lai
+    public void refresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tryReload();
+                }
+            });
+        } else {
+            tryReload();
+        }
+    }
+
+    public Optional<Role> getRole(String name) {
+        Role role = snapshot.rolesByName().get(name);
+        if (role != null) return Optional.of(copy(role));
+
+        Optional<Role> loaded = roleRepository.findByName(name);
+        if (loaded.isPresent()) tryReload();
+
+        return loaded;
+    }
+
+    public Optional<Category> getCategory(Long categoryId) {
+        Category category = snapshot.categoriesById().get(categoryId);
+        if (category != null) return Optional.of(copy(category));
+
+        Optional<Category> loaded = categoryRepository.findById(categoryId);
+        if (loaded.isPresent()) tryReload();
+
+        return loaded;
+    }
+
+    public List<Category> getCategories() {
+        // chua nap duoc luc khoi dong
+        if (snapshot == Snapshot.EMPTY) tryReload();
+
+        return snapshot.categories().stream().map(ReferenceDataCache::copy).toList();
+    }
+
+    // version cua danh sach category (epoch ms) cho ETag/Last-Modified
+    public long getCategoriesLastModified() {
+        return snapshot.categoriesChangedAt();
+    }
+
+    private boolean tryReload() {
+        try {
+            reload();
+            return true;
+        } catch (Exception e) {
+            log.error("Cannot load reference data", e);
+            return false;
+        }
+    }
+
+    private static List<String> names(List<Category> categories) {
+        return categories.stream()
+                .map(category -> category.getId() + ":" + category.getName())
+                .toList();
+    }
+
+    private static Role copy(Role role) {
+        return Role.builder().id(role.getId()).name(role.getName()).build();
+    }
+
+    private static Category copy(Category category) {
+        return Category.builder().id(category.getId()).name(category.getName()).build();
+    }
+
+    record Snapshot(
+            Map<String, Role> rolesByName,
+            Map<Long, Category> categoriesById,
+            List<Category> categories,
+            long categoriesChangedAt) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), List.of(), 0);
+    }
+}
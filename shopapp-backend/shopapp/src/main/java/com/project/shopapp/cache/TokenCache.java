@@ -0,0 +1,75 @@
+package com.project.shopapp.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+// Cache cac token da verify (key: jti), het han theo exp cua token nhung khong qua max-ttl
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class TokenCache {
+    Cache<String, Jwt> cache;
+
+    public TokenCache(
+            @Value("${jwt.cache.maximum-size:10000}") long maximumSize,
+            @Value("${jwt.cache.max-ttl:300}") long maxTtl) {
+        Duration maxDuration = Duration.ofSeconds(maxTtl);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String jti, Jwt jwt, long currentTime) {
+                        Instant expiresAt = jwt.getExpiresAt();
+                        if (expiresAt == null) return maxDuration.toNanos();
+
+                        Duration remaining = Duration.between(Instant.now(), expiresAt);
+                        if (remaining.isNegative()) return 0;
+
+                        return remaining.compareTo(maxDuration) < 0 ? remaining.toNanos() : maxDuration.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String jti, Jwt jwt, long currentTime, long currentDuration) {
+                        return expireAfterCreate(jti, jwt, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String jti, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public Jwt get(String jti, String token) {
+        if (jti == null) return null;
+
+        Jwt jwt = cache.getIfPresent(jti);
+
+        // so sanh ca chuoi token de tranh token gia mao dung lai jti cua token hop le
+        if (jwt == null || !jwt.getTokenValue().equals(token)) return null;
+
+        return jwt;
+    }
+
+    public void put(Jwt jwt) {
+        if (jwt.getId() != null) cache.put(jwt.getId(), jwt);
+    }
+
+    public void invalidate(String jti) {
+        if (jti != null) cache.invalidate(jti);
+    }
+
+    public void invalidateSubject(String subject) {
+        cache.asMap().values().removeIf(jwt -> subject.equals(jwt.getSubject()));
+    }
+}
@@ -1,50 +1,103 @@
 package com.project.shopapp.configuration;
 
 import java.text.ParseException;
-import java.util.Objects;
-import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import com.nimbusds.jose.JOSEException;
-import com.project.shopapp.dto.request.IntrospectRequest;
-import com.project.shopapp.service.AuthenticationService;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.SignedJWT;
+import com.project.shopapp.cache.PrincipalCache;
+import com.project.shopapp.cache.TokenCache;
+import com.project.shopapp.service.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
 import org.springframework.stereotype.Component;
 
+// parse 1 lan, verify 1 lan voi verifier tao san, sau do chay cac OAuth2TokenValidator (thu hoi, user active...)
 @Component
 public class CustomJwtDecoder implements JwtDecoder {
+    private final JWSVerifier verifier;
+    private final OAuth2TokenValidator<Jwt> jwtValidator;
+    private final Converter<Map<String, Object>, Map<String, Object>> claimSetConverter =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+    private final TokenCache tokenCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final PrincipalCache principalCache;
 
-    @Value("${jwt.signer-key}")
-    private String signerKey;
+    public CustomJwtDecoder(
+            @Value("${jwt.signer-key}") String signerKey,
+            TokenCache tokenCache,
+            TokenRevocationService tokenRevocationService,
+            PrincipalCache principalCache,
+            List<OAuth2TokenValidator<Jwt>> validators)
+            throws JOSEException {
+        this.verifier = new MACVerifier(signerKey.getBytes());
+        this.tokenCache = tokenCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.principalCache = principalCache;
 
-    @Autowired
-    private AuthenticationService authenticationService;
+        List<OAuth2TokenValidator<Jwt>> jwtValidators = new ArrayList<>();
+        jwtValidators.add(new JwtTimestampValidator(Duration.ZERO));
+        jwtValidators.addAll(validators);
 
-    private NimbusJwtDecoder nimbusJwtDecoder = null;
+        this.jwtValidator = new DelegatingOAuth2TokenValidator<>(jwtValidators);
+    }
 
     @Override
     public Jwt decode(String token) throws JwtException {
+        SignedJWT signedJWT;
+        Map<String, Object> claims;
 
         try {
-            var response = authenticationService.introspect(
-                    IntrospectRequest.builder().token(token).build());
-            if (!response.isValid()) throw new JwtException("Token invalid");
-        } catch (JOSEException | ParseException e) {
-            throw new JwtException(e.getMessage());
+            signedJWT = SignedJWT.parse(token);
+            claims = signedJWT.getJWTClaimsSet().getClaims();
+        } catch (ParseException e) {
+            throw new BadJwtException(e.getMessage(), e);
         }
 
-        if (Objects.isNull(nimbusJwtDecoder)) {
-            SecretKeySpec secretKeySpec = new SecretKeySpec(signerKey.getBytes(), "HS512");
+        String jti = (String) claims.get("jti");
+
+        Jwt cachedJwt = tokenCache.get(jti, token);
+        // user bi khoa (co the tren instance khac) thi bo qua cache, de ActiveUserValidator tu choi token
+        if (cachedJwt != null
+                && !tokenRevocationService.isRevoked(jti)
+                && !principalCache.isDeactivated(cachedJwt.getSubject())) return cachedJwt;
 
-            nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
-                    .macAlgorithm(MacAlgorithm.HS512)
-                    .build();
+        try {
+            if (!JWSAlgorithm.HS512.equals(signedJWT.getHeader().getAlgorithm()) || !signedJWT.verify(verifier))
+                throw new BadJwtException("Token invalid");
+        } catch (JOSEException e) {
+            throw new BadJwtException(e.getMessage(), e);
         }
-        return nimbusJwtDecoder.decode(token);
+
+        Jwt jwt = Jwt.withTokenValue(token)
+                .headers(headers -> headers.putAll(signedJWT.getHeader().toJSONObject()))
+                .claims(jwtClaims -> jwtClaims.putAll(claimSetConverter.convert(claims)))
+                .build();
+
+        OAuth2TokenValidatorResult result = jwtValidator.validate(jwt);
+        if (result.hasErrors())
+            throw new JwtValidationException(
+                    result.getErrors().iterator().next().getDescription(), result.getErrors());
+
+        tokenCache.put(jwt);
+
+        return jwt;
     }
 }
@@ -0,0 +1,40 @@
+package com.project.shopapp.configuration;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Virtual thread khong con bi gioi han boi so thread cua Tomcat: 2k request co the cung cho getConnection.
+// db.limiter.enabled (mac dinh theo spring.threads.virtual.enabled) boc DataSource bang LimitedDataSource,
+// so thao tac DB dong thoi = maximum-pool-size cua HikariCP
+@Configuration
+@ConditionalOnProperty(name = "db.limiter.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    @Bean
+    static BeanPostProcessor limitedDataSourcePostProcessor(
+            @Value("${db.limiter.max-concurrent:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrent,
+            @Value("${db.limiter.max-waiting:1000}") int maxWaiting,
+            @Value("${db.limiter.acquire-timeout:5000}") long acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof LimitedDataSource) return bean;
+
+                return new LimitedDataSource(dataSource, maxConcurrent, maxWaiting, acquireTimeout);
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder dbLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof LimitedDataSource limitedDataSource) limitedDataSource.bindTo(registry);
+        };
+    }
+}
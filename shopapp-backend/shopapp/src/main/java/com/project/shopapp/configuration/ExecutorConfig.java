@@ -0,0 +1,114 @@
+package com.project.shopapp.configuration;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Executor mac dinh cua @Async. Spring Boot khong tu tao vi da co cac pool ben duoi nen khai bao lai tu builder
+    // cua Boot (spring.task.execution.*). spring.threads.virtual.enabled=true (JDK 21+): moi task 1 virtual thread
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    SimpleAsyncTaskExecutor applicationTaskExecutorVirtualThreads(SimpleAsyncTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    @ConditionalOnThreading(Threading.PLATFORM)
+    ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // pool rieng cho BCrypt de dot login khong chiem het thread cua Tomcat
+    @Bean
+    ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${password.hashing.pool-size:4}") int poolSize,
+            @Value("${password.hashing.queue-capacity:100}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hashing-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getThreadPoolExecutor()
+                        .getQueue()
+                        .size())
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+
+        return executor;
+    }
+
+    // doi gia san pham nam trong rat nhieu gio hang: cap nhat carts theo lo o nen
+    @Bean
+    ThreadPoolTaskExecutor cartRepricingExecutor(
+            @Value("${cart.repricing.pool-size:1}") int poolSize,
+            @Value("${cart.repricing.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cart-repricing-");
+        // hang doi day thi chay luon tren thread goi, khong bo viec cap nhat gia
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    // tao anh thu nho sau khi upload; it thread vi moi anh giai nen co the ton hang tram MB
+    @Bean
+    ThreadPoolTaskExecutor imageVariantExecutor(
+            @Value("${image.variants.pool-size:2}") int poolSize,
+            @Value("${image.variants.queue-capacity:500}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-variant-");
+        // hang doi day thi bo qua, lan quet dinh ky se tao bu
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        Gauge.builder("image.variants.queue.depth", executor, e -> e.getThreadPoolExecutor()
+                        .getQueue()
+                        .size())
+                .register(meterRegistry);
+
+        return executor;
+    }
+
+    // ghi/xoa file upload song song ngoai transaction
+    @Bean
+    ThreadPoolTaskExecutor imageUploadExecutor(
+            @Value("${upload.io.pool-size:8}") int poolSize,
+            @Value("${upload.io.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-upload-");
+        // hang doi day thi request tu ghi file tren thread cua no
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+}
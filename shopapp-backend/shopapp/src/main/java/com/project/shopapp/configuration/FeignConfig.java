@@ -0,0 +1,23 @@
+package com.project.shopapp.configuration;
+
+import java.util.Map;
+
+import org.springframework.cloud.openfeign.CircuitBreakerNameResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FeignConfig {
+    // feign client -> provider: doi token va lay user info cung 1 provider dung chung circuit breaker/bulkhead
+    // (resilience4j.*.instances.google/github), Google cham khong keo theo dang nhap GitHub
+    static final Map<String, String> PROVIDERS = Map.of(
+            "outbound-identity", "google",
+            "outbound-user", "google",
+            "outbound-github-identity", "github",
+            "outbound-github-user", "github");
+
+    @Bean
+    CircuitBreakerNameResolver circuitBreakerNameResolver() {
+        return (feignClientName, target, method) -> PROVIDERS.getOrDefault(feignClientName, feignClientName);
+    }
+}
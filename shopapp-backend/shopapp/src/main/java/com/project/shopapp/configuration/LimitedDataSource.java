@@ -0,0 +1,118 @@
+package com.project.shopapp.configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Moi connection dang muon giu 1 permit, tra lai khi close(). Thread cho permit xep hang FIFO ngay tai day
+// thay vi trong HikariCP: qua max-waiting thread dang cho hoac cho qua acquire-timeout thi loi ngay
+// (SQLTransientConnectionException -> 503) thay vi giu request toi connection-timeout cua pool
+public class LimitedDataSource extends DelegatingDataSource {
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long acquireTimeout;
+
+    private volatile Counter rejected;
+
+    public LimitedDataSource(DataSource dataSource, int maxConcurrent, int maxWaiting, long acquireTimeout) {
+        super(dataSource);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return limited(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("db.limiter.active", permits, p -> maxConcurrent - p.availablePermits())
+                .register(registry);
+        Gauge.builder("db.limiter.waiting", permits, Semaphore::getQueueLength).register(registry);
+        rejected = Counter.builder("db.limiter.rejected").register(registry);
+    }
+
+    private void acquire() throws SQLException {
+        // max-waiting < 0: khong gioi han hang doi
+        if (maxWaiting >= 0 && permits.getQueueLength() >= maxWaiting) {
+            if (permits.tryAcquire()) return;
+
+            throw reject("too many waiting threads");
+        }
+
+        try {
+            if (!permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS))
+                throw reject("timed out after " + acquireTimeout + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        }
+    }
+
+    private SQLException reject(String reason) {
+        if (rejected != null) rejected.increment();
+
+        return new SQLTransientConnectionException("Database concurrency limit reached: " + reason);
+    }
+
+    private Connection limited(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionProxy.class.getClassLoader(),
+                new Class<?>[] {ConnectionProxy.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getTargetConnection" -> connection;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "close" -> {
+                        try {
+                            connection.close();
+                        } finally {
+                            // close() goi lai nhieu lan chi tra 1 permit
+                            if (released.compareAndSet(false, true)) permits.release();
+                        }
+                        yield null;
+                    }
+                    default -> {
+                        try {
+                            yield method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    }
+                });
+    }
+}
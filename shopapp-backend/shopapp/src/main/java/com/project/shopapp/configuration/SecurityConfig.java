@@ -1,6 +1,7 @@
 package com.project.shopapp.configuration;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -27,7 +28,8 @@ public class SecurityConfig {
     };
 
     private static final String[] PUBLIC_GET_ENDPOINTS = {
-            "/products", "/products/{productId}", "/product-images/product/{productId}", "/categories", "/categories/{id}"
+            "/products", "/products/{productId}", "/product-images/product/{productId}", "/categories", "/categories/{id}",
+            "/images/**"
     };
 
     @Autowired
@@ -56,8 +58,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    PasswordEncoder passwordEncoder(@Value("${password.hashing.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -0,0 +1,22 @@
+package com.project.shopapp.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.WebContentInterceptor;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // Spring Security mac dinh gui "no-store" -> client khong luu nen khong bao gio gui If-None-Match.
+    // Catalog cong khai: cho luu nhung luon hoi lai server (ETag/Last-Modified) truoc khi dung
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        WebContentInterceptor interceptor = new WebContentInterceptor();
+        interceptor.addCacheMapping(
+                CacheControl.noCache(), "/products", "/products/*", "/categories", "/product-images/product/*");
+
+        registry.addInterceptor(interceptor);
+    }
+}
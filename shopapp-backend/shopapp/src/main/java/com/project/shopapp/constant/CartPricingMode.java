@@ -0,0 +1,9 @@
+package com.project.shopapp.constant;
+
+// Cach luu gia trong gio hang (cart.pricing-mode)
+public enum CartPricingMode {
+    // carts.price/total_money chep tu products.price, phai cap nhat lai moi khi gia doi (mac dinh)
+    STORED,
+    // carts chi luu (user, product, color, quantity), gia va thanh tien tinh luc doc tu products.price
+    LAZY
+}
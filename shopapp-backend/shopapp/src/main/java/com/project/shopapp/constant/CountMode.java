@@ -0,0 +1,11 @@
+package com.project.shopapp.constant;
+
+// Cach tinh tong so ban ghi cho cac API find-by-querydsl
+public enum CountMode {
+    // COUNT moi request (mac dinh)
+    EXACT,
+    // dung lai ket qua COUNT theo bo loc trong thoi gian ngan
+    CACHED,
+    // khong COUNT, tra ve Slice (lay size + 1 ban ghi de biet con trang sau)
+    NONE
+}
@@ -0,0 +1,21 @@
+package com.project.shopapp.constant;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+// Cac ban thu nho sinh tu anh goc, theo canh dai nhat (px)
+@Getter
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public enum ImageVariant {
+    // danh sach san pham (ca products.list_thumbnail)
+    THUMBNAIL(240),
+    // trang chi tiet
+    DETAIL(800),
+    // phong to
+    ZOOM(1600);
+
+    int maxSize;
+}
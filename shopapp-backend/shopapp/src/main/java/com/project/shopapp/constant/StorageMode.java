@@ -0,0 +1,9 @@
+package com.project.shopapp.constant;
+
+// Cach dat ten file upload (upload.storage-mode)
+public enum StorageMode {
+    // uploads/<UUID>_<ten goc>: moi lan upload 1 file rieng, ke ca khi noi dung trung (mac dinh)
+    UUID,
+    // uploads/ab/cd/<sha256 noi dung>: cung noi dung chi luu 1 file, nhieu anh/thumbnail dung chung
+    CONTENT_ADDRESSED
+}
@@ -11,6 +11,7 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/categories")
@@ -27,7 +28,10 @@ public class CategoryController {
     }
 
     @GetMapping
-    ApiResponse<List<CategoryResponse>> getCategories(@RequestParam("page") int page) {
+    ApiResponse<List<CategoryResponse>> getCategories(@RequestParam("page") int page, WebRequest webRequest) {
+        long lastModified = categoryService.getCategoriesLastModified();
+        if (webRequest.checkNotModified("\"categories-" + lastModified + "\"", lastModified)) return null;
+
         return ApiResponse.<List<CategoryResponse>>builder()
                 .result(categoryService.getCategories())
                 .build();
@@ -0,0 +1,87 @@
+package com.project.shopapp.controller;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.project.shopapp.cache.ImageCache.CachedImage;
+import com.project.shopapp.service.ImageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+// Anh san pham theo ten luu trong ProductImageResponse.imageUrl / ProductResponse.thumbnail,
+// vd. GET /images/ab/cd/<sha256>. Ten file khong bao gio bi ghi de nen client luu vinh vien
+@RestController
+@RequestMapping("/images")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ImageController {
+    static final String CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+
+    ImageService imageService;
+
+    @GetMapping("/{*fileName}")
+    void getImage(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        CachedImage image = imageService.getImage(fileName.substring(1));
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(image.eTag())) return;
+
+        response.setContentType(image.contentType());
+
+        long start = 0;
+        long end = image.length() - 1;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        // If-Range khac ETag (ban client dang co da cu) -> tra ca file
+        if (range != null && isIfRangeMatched(request, image)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+
+                // nhieu khoang (multipart/byteranges) it dung voi anh -> bo qua Range, tra ca file
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(image.length());
+                    end = ranges.get(0).getRangeEnd(image.length());
+                    if (start >= image.length() || start > end) throw new IllegalArgumentException(range);
+
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(
+                            HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + image.length());
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + image.length());
+                return;
+            }
+        }
+
+        if (HttpMethod.HEAD.matches(request.getMethod()) || image.length() == 0) {
+            response.setContentLengthLong(end - start + 1);
+            return;
+        }
+
+        imageService.write(image, start, end, request, response);
+    }
+
+    private static boolean isIfRangeMatched(HttpServletRequest request, CachedImage image) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+
+        return ifRange == null || ifRange.equals(image.eTag());
+    }
+}
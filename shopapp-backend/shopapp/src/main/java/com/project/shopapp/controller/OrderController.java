@@ -2,10 +2,12 @@ package com.project.shopapp.controller;
 
 import java.time.LocalDate;
 
+import com.project.shopapp.constant.CountMode;
 import com.project.shopapp.dto.request.OrderCreationRequest;
 import com.project.shopapp.dto.request.OrderStatusUpdateRequest;
 import com.project.shopapp.dto.request.OrderUpdateRequest;
 import com.project.shopapp.dto.response.ApiResponse;
+import com.project.shopapp.dto.response.CursorPageResponse;
 import com.project.shopapp.dto.response.OrderResponse;
 import com.project.shopapp.service.OrderService;
 import jakarta.validation.Valid;
@@ -14,6 +16,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -41,6 +44,15 @@ public class OrderController {
                 .build();
     }
 
+    // co tham so cursor -> phan trang theo cursor thay cho page/offset
+    @GetMapping(params = "cursor")
+    ApiResponse<CursorPageResponse<OrderResponse>> getOrdersByCursor(
+            @RequestParam String cursor, @RequestParam(defaultValue = "10") int size) {
+        return ApiResponse.<CursorPageResponse<OrderResponse>>builder()
+                .result(orderService.getOrdersByCursor(cursor, size))
+                .build();
+    }
+
     @GetMapping("/search")
     ApiResponse<Page<OrderResponse>> searchOrders(
             @RequestParam(defaultValue = "") String keyword,
@@ -51,8 +63,9 @@ public class OrderController {
                 .build();
     }
 
+    // count=EXACT|CACHED|NONE: NONE tra ve Slice, khong COUNT
     @GetMapping("/find-by-querydsl")
-    ApiResponse<Page<OrderResponse>> findOrdersByQuerydsl(
+    ApiResponse<Slice<OrderResponse>> findOrdersByQuerydsl(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Float totalMoneyFrom,
             @RequestParam(required = false) Float totalMoneyTo,
@@ -61,10 +74,31 @@ public class OrderController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Boolean isActive,
             @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             @PageableDefault(size = 10, sort = "createAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ApiResponse.<Page<OrderResponse>>builder()
+        return ApiResponse.<Slice<OrderResponse>>builder()
                 .result(orderService.findOrdersByQuerydsl(
-                        keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, status, isActive, userId, pageable))
+                        keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, status, isActive, userId, count,
+                        pageable))
+                .build();
+    }
+
+    @GetMapping(value = "/find-by-querydsl", params = "cursor")
+    ApiResponse<CursorPageResponse<OrderResponse>> findOrdersByCursor(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Float totalMoneyFrom,
+            @RequestParam(required = false) Float totalMoneyTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Long userId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ApiResponse.<CursorPageResponse<OrderResponse>>builder()
+                .result(orderService.findOrdersByCursor(
+                        keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, status, isActive, userId, cursor,
+                        size))
                 .build();
     }
 
@@ -76,6 +110,14 @@ public class OrderController {
                 .build();
     }
 
+    @GetMapping(value = "/my-orders", params = "cursor")
+    ApiResponse<CursorPageResponse<OrderResponse>> getMyOrdersByCursor(
+            @RequestParam String cursor, @RequestParam(defaultValue = "10") int limit) {
+        return ApiResponse.<CursorPageResponse<OrderResponse>>builder()
+                .result(orderService.getMyOrdersByCursor(cursor, limit))
+                .build();
+    }
+
     @GetMapping("/{orderId}")
     ApiResponse<OrderResponse> getOrder(@PathVariable Long orderId) {
         return ApiResponse.<OrderResponse>builder()
@@ -1,7 +1,9 @@
 package com.project.shopapp.controller;
 
+import com.project.shopapp.constant.CountMode;
 import com.project.shopapp.dto.request.ProductRequest;
 import com.project.shopapp.dto.response.ApiResponse;
+import com.project.shopapp.dto.response.CursorPageResponse;
 import com.project.shopapp.dto.response.ProductResponse;
 import com.project.shopapp.service.ProductService;
 import jakarta.validation.Valid;
@@ -10,10 +12,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RequestMapping("/products")
 @RestController
@@ -33,33 +37,75 @@ public class ProductController {
     ApiResponse<Page<ProductResponse>> getProductsByKeyword(
             @RequestParam(defaultValue = "", required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        // 1 version chung cho moi trang danh sach: 304 thi khong cham toi service/DB
+        long lastModified = productService.getCatalogLastModified();
+        if (webRequest.checkNotModified("\"products-" + lastModified + "\"", lastModified)) return null;
+
         return ApiResponse.<Page<ProductResponse>>builder()
                 .result(productService.getProductsByKeyword(keyword, page, size))
                 .build();
     }
 
+    // co tham so cursor -> phan trang theo cursor thay cho page/offset
+    @GetMapping(params = "cursor")
+    ApiResponse<CursorPageResponse<ProductResponse>> getProductsByCursor(
+            @RequestParam(defaultValue = "", required = false) String keyword,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        long lastModified = productService.getCatalogLastModified();
+        if (webRequest.checkNotModified("\"products-" + lastModified + "\"", lastModified)) return null;
+
+        return ApiResponse.<CursorPageResponse<ProductResponse>>builder()
+                .result(productService.getProductsByCursor(keyword, cursor, size))
+                .build();
+    }
+
+    // count=EXACT|CACHED|NONE: NONE tra ve Slice, khong COUNT
     @GetMapping("/find-by-querydsl")
-    ApiResponse<Page<ProductResponse>> findProductsByQuerydsl(
+    ApiResponse<Slice<ProductResponse>> findProductsByQuerydsl(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Float fromPrice,
             @RequestParam(required = false) Float toPrice,
             @RequestParam(required = false) Boolean isActive,
             @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ApiResponse.<Page<ProductResponse>>builder()
+        return ApiResponse.<Slice<ProductResponse>>builder()
                 .result(productService.findProductsByQuerydsl(
-                        keyword, fromPrice, toPrice, isActive, categoryId, pageable))
+                        keyword, fromPrice, toPrice, isActive, categoryId, count, pageable))
                 .build();
     }
 
-    @GetMapping("/{productId}")
-    ApiResponse<ProductResponse> getProduct(@PathVariable Long productId) {
-        return ApiResponse.<ProductResponse>builder()
-                .result(productService.getProduct(productId))
+    @GetMapping(value = "/find-by-querydsl", params = "cursor")
+    ApiResponse<CursorPageResponse<ProductResponse>> findProductsByCursor(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Float fromPrice,
+            @RequestParam(required = false) Float toPrice,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ApiResponse.<CursorPageResponse<ProductResponse>>builder()
+                .result(productService.findProductsByCursor(
+                        keyword, fromPrice, toPrice, isActive, categoryId, cursor, size))
                 .build();
     }
 
+    @GetMapping("/{productId}")
+    ApiResponse<ProductResponse> getProduct(@PathVariable Long productId, WebRequest webRequest) {
+        // thuong lay tu ProductCache: 304 thi khong serialize body
+        ProductResponse product = productService.getProduct(productId);
+
+        long lastModified = productService.getLastModified(product);
+        if (webRequest.checkNotModified("\"product-" + productId + "-" + lastModified + "\"", lastModified))
+            return null;
+
+        return ApiResponse.<ProductResponse>builder().result(product).build();
+    }
+
     @PutMapping("/{productId}")
     ApiResponse<ProductResponse> updateProduct(
             @PathVariable Long productId, @ModelAttribute @Valid ProductRequest request) {
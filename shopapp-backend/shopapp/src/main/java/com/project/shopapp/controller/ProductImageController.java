@@ -9,6 +9,7 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 @RestController
@@ -27,7 +28,12 @@ public class ProductImageController {
     }
 
     @GetMapping("/product/{productId}")
-    ApiResponse<List<ProductImageResponse>> getProductImagesByProductId(@PathVariable Long productId) {
+    ApiResponse<List<ProductImageResponse>> getProductImagesByProductId(
+            @PathVariable Long productId, WebRequest webRequest) {
+        long lastModified = productImageService.getImagesLastModified(productId);
+        if (webRequest.checkNotModified("\"images-" + productId + "-" + lastModified + "\"", lastModified))
+            return null;
+
         return ApiResponse.<List<ProductImageResponse>>builder()
                 .result(productImageService.getProductImagesByProductId(productId))
                 .build();
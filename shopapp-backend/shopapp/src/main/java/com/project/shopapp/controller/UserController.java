@@ -2,11 +2,13 @@ package com.project.shopapp.controller;
 
 import java.time.LocalDate;
 
+import com.project.shopapp.constant.CountMode;
 import com.project.shopapp.dto.request.PasswordCreationRequest;
 import com.project.shopapp.dto.request.UserCreationRequest;
 import com.project.shopapp.dto.request.UserRolesUpdateRequest;
 import com.project.shopapp.dto.request.UserUpdateRequest;
 import com.project.shopapp.dto.response.ApiResponse;
+import com.project.shopapp.dto.response.CursorPageResponse;
 import com.project.shopapp.dto.response.UserResponse;
 import com.project.shopapp.service.UserService;
 import jakarta.validation.Valid;
@@ -16,6 +18,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -58,6 +61,15 @@ public class UserController {
                 .build();
     }
 
+    // co tham so cursor -> phan trang theo cursor thay cho page/offset
+    @GetMapping(params = "cursor")
+    ApiResponse<CursorPageResponse<UserResponse>> getUsersByCursor(
+            @RequestParam String cursor, @RequestParam(defaultValue = "10") int size) {
+        return ApiResponse.<CursorPageResponse<UserResponse>>builder()
+                .result(userService.getUsersByCursor(cursor, size))
+                .build();
+    }
+
     @GetMapping("/search")
     ApiResponse<Page<UserResponse>> searchUsers(
             @RequestParam(defaultValue = "", required = false) String keyword,
@@ -68,16 +80,33 @@ public class UserController {
                 .build();
     }
 
+    // count=EXACT|CACHED|NONE: NONE tra ve Slice, khong COUNT
     @GetMapping("/find-by-querydsl")
-    ApiResponse<Page<UserResponse>> findUsersByQuerydsl(
+    ApiResponse<Slice<UserResponse>> findUsersByQuerydsl(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) Boolean isActive,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long roleId,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
-        return ApiResponse.<Page<UserResponse>>builder()
-                .result(userService.findUsersByQuerydsl(keyword, isActive, startDate, endDate, roleId, pageable))
+        return ApiResponse.<Slice<UserResponse>>builder()
+                .result(userService.findUsersByQuerydsl(
+                        keyword, isActive, startDate, endDate, roleId, count, pageable))
+                .build();
+    }
+
+    @GetMapping(value = "/find-by-querydsl", params = "cursor")
+    ApiResponse<CursorPageResponse<UserResponse>> findUsersByCursor(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Boolean isActive,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long roleId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        return ApiResponse.<CursorPageResponse<UserResponse>>builder()
+                .result(userService.findUsersByCursor(keyword, isActive, startDate, endDate, roleId, cursor, size))
                 .build();
     }
 
@@ -0,0 +1,44 @@
+package com.project.shopapp.dto.request;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import com.project.shopapp.exception.AppException;
+import com.project.shopapp.exception.ErrorCode;
+import org.springframework.util.StringUtils;
+
+// Vi tri (createdAt, id) cua ban ghi cuoi trang truoc, client chi nhan chuoi base64 khong doc duoc
+public record PageCursor(LocalDateTime createdAt, Long id) {
+    static final String SEPARATOR = "|";
+
+    // cursor rong -> trang dau tien
+    public static PageCursor decode(String cursor) {
+        if (!StringUtils.hasText(cursor)) return null;
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+
+            return new PageCursor(
+                    LocalDateTime.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new AppException(ErrorCode.INVALID_CURSOR);
+        }
+    }
+
+    public static String encode(LocalDateTime createdAt, Long id) {
+        String value = createdAt + SEPARATOR + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ban ghi (createdAt, id) nam sau cursor theo thu tu createdAt desc, id desc
+    public boolean precedes(LocalDateTime createdAt, Long id) {
+        if (createdAt == null) return false;
+
+        int compare = createdAt.compareTo(this.createdAt);
+
+        return compare < 0 || (compare == 0 && id < this.id);
+    }
+}
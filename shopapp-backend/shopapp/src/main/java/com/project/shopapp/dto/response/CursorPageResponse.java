@@ -0,0 +1,45 @@
+package com.project.shopapp.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import com.project.shopapp.dto.request.PageCursor;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPageResponse<T> {
+    List<T> content;
+    int size;
+    boolean hasNext;
+    String nextCursor;
+
+    // rows lay du size + 1 ban ghi: co ban ghi thu size + 1 -> con trang sau
+    public static <E, T> CursorPageResponse<T> of(
+            List<E> rows,
+            int size,
+            Function<E, T> mapper,
+            Function<E, LocalDateTime> createdAt,
+            Function<E, Long> id) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            E last = page.get(page.size() - 1);
+            nextCursor = PageCursor.encode(createdAt.apply(last), id.apply(last));
+        }
+
+        return CursorPageResponse.<T>builder()
+                .content(page.stream().map(mapper).toList())
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
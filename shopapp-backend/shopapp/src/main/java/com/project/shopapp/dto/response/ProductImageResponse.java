@@ -11,5 +11,8 @@ import lombok.experimental.FieldDefaults;
 public class ProductImageResponse {
     Long id;
     String imageUrl;
+    String thumbnailUrl;
+    String detailUrl;
+    String zoomUrl;
     boolean isPrimary;
 }
@@ -2,7 +2,6 @@ package com.project.shopapp.dto.response;
 
 import java.time.LocalDateTime;
 
-import com.project.shopapp.entity.Category;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -16,10 +15,11 @@ public class ProductResponse {
     String name;
     Float price;
     String thumbnail;
+    String listThumbnail;
     String description;
     LocalDateTime createdAt;
     LocalDateTime updatedAt;
     Integer quantity;
     Boolean isActive;
-    Category category;
+    CategoryResponse category;
 }
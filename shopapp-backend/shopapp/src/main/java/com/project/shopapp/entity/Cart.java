@@ -20,10 +20,10 @@ public class Cart extends BaseEntity {
     @Column(nullable = false)
     Integer quantity;
 
-    @Column(nullable = false)
+    // null khi cart.pricing-mode = LAZY
     Float price;
 
-    @Column(name = "total_money", nullable = false)
+    @Column(name = "total_money")
     Float totalMoney;
 
     String color;
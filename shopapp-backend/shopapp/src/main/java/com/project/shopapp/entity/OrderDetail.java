@@ -35,4 +35,9 @@ public class OrderDetail {
     Float totalMoney;
 
     String color;
+
+    // false: san pham hot, so luong moi chi tru tren bo dem trong bo nho, chua ghi xuong products
+    @Column(name = "is_stock_flushed", nullable = false)
+    @Builder.Default
+    Boolean isStockFlushed = true;
 }
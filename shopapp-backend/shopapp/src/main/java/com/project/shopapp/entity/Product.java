@@ -3,6 +3,7 @@ package com.project.shopapp.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Getter
 @Setter
@@ -12,6 +13,8 @@ import lombok.experimental.FieldDefaults;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
 @Table(name = "products")
+// chi UPDATE cac cot thay doi: save() khong ghi de quantity da bi UPDATE nguyen tu tru/cong
+@DynamicUpdate
 public class Product extends BaseEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,6 +29,10 @@ public class Product extends BaseEntity {
     @Column(length = 300)
     String thumbnail;
 
+    // thumbnail thu nho cho trang danh sach, null khi chua tao xong
+    @Column(name = "list_thumbnail", length = 300)
+    String listThumbnail;
+
     String description;
 
     @Column(nullable = false)
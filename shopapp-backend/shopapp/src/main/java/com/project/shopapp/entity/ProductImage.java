@@ -20,6 +20,16 @@ public class ProductImage {
     @Column(name = "image_url", nullable = false)
     String imageUrl;
 
+    // ban thu nho (ImageVariant), null khi chua tao xong; anh goc nho hon hoac khong doc duoc thi = imageUrl
+    @Column(name = "thumbnail_url")
+    String thumbnailUrl;
+
+    @Column(name = "detail_url")
+    String detailUrl;
+
+    @Column(name = "zoom_url")
+    String zoomUrl;
+
     @Column(name = "is_primary")
     Boolean isPrimary;
 
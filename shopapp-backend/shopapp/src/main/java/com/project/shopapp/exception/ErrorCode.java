@@ -16,6 +16,10 @@ public enum ErrorCode {
     INVALID_FILE(1003, "Invalid file", HttpStatus.BAD_REQUEST),
     INVALID_FILE_SIZE(1004, "File is too large! Maximum size is 10 MB", HttpStatus.PAYLOAD_TOO_LARGE),
     DATA_CONFLICT(1005, "Cannot delete because this item is still in use", HttpStatus.CONFLICT),
+    SERVER_BUSY(1006, "Server is busy, please try again later", HttpStatus.SERVICE_UNAVAILABLE),
+    INVALID_CURSOR(1007, "Invalid cursor", HttpStatus.BAD_REQUEST),
+    IDENTITY_PROVIDER_UNAVAILABLE(
+            1008, "Identity provider is unavailable, please try again later", HttpStatus.SERVICE_UNAVAILABLE),
 
     // category error
     CATEGORY_NAME_NOT_BLANK(1101, "Category's name cannot be blank", HttpStatus.BAD_REQUEST),
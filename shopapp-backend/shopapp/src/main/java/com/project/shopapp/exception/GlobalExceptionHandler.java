@@ -4,12 +4,19 @@ import java.util.Map;
 import java.util.Objects;
 
 import com.project.shopapp.dto.response.ApiResponse;
+import feign.FeignException;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import jakarta.validation.ConstraintViolation;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.circuitbreaker.NoFallbackAvailableException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -67,6 +74,52 @@ public class GlobalExceptionHandler {
                         .build());
     }
 
+    // het connection/permit DB (LimitedDataSource, HikariCP connection-timeout) -> 503 de client thu lai
+    @ExceptionHandler(value = {CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    ResponseEntity<ApiResponse> handlingDatabaseBusyException(RuntimeException exception) {
+        log.warn(exception.toString());
+        ErrorCode errorCode = ErrorCode.SERVER_BUSY;
+
+        return ResponseEntity.status(errorCode.getStatusCode())
+                .body(ApiResponse.builder()
+                        .code(errorCode.getCode())
+                        .message(errorCode.getMessage())
+                        .build());
+    }
+
+    // Google/GitHub qua read-timeout, loi 5xx, circuit breaker dang mo hoac bulkhead day
+    @ExceptionHandler(
+            value = {
+                RetryableException.class,
+                FeignException.FeignServerException.class,
+                CallNotPermittedException.class,
+                BulkheadFullException.class
+            })
+    ResponseEntity<ApiResponse> handlingIdentityProviderException(RuntimeException exception) {
+        log.warn(exception.toString());
+        ErrorCode errorCode = ErrorCode.IDENTITY_PROVIDER_UNAVAILABLE;
+
+        return ResponseEntity.status(errorCode.getStatusCode())
+                .body(ApiResponse.builder()
+                        .code(errorCode.getCode())
+                        .message(errorCode.getMessage())
+                        .build());
+    }
+
+    // feign client chay trong circuit breaker boc loi goc, khong co fallback thi nem NoFallbackAvailableException
+    @ExceptionHandler(value = NoFallbackAvailableException.class)
+    ResponseEntity<ApiResponse> handlingNoFallbackException(NoFallbackAvailableException exception) {
+        Throwable cause = exception.getCause();
+        boolean unavailable = cause instanceof RetryableException
+                || cause instanceof FeignException.FeignServerException
+                || cause instanceof CallNotPermittedException
+                || cause instanceof BulkheadFullException;
+
+        return unavailable
+                ? handlingIdentityProviderException((RuntimeException) cause)
+                : handlingRuntimeException(exception);
+    }
+
     @ExceptionHandler(value = MaxUploadSizeExceededException.class)
     ResponseEntity<ApiResponse> handlingMaxSizeException(MaxUploadSizeExceededException exception) {
         ErrorCode errorCode = ErrorCode.INVALID_FILE_SIZE;
@@ -0,0 +1,90 @@
+package com.project.shopapp.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// So luong ton kho chia thanh nhieu stripe, moi thread uu tien tru tren stripe cua minh
+// -> nhieu nguoi mua cung 1 san pham khong CAS tranh nhau tren cung 1 o nho
+public class StripedStockCounter {
+    // moi stripe chiem rieng 1 cache line (8 long = 64 byte) de tranh false sharing
+    static final int PADDING = 8;
+    static final int MAX_ATTEMPTS = 2;
+
+    final AtomicLongArray cells;
+    final int stripes;
+
+    public StripedStockCounter(int stripes, long quantity) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+
+        // chia deu, phan du don vao stripe dau
+        for (int i = 0; i < stripes; i++) cells.set(i * PADDING, quantity / stripes);
+        cells.addAndGet(0, quantity % stripes);
+    }
+
+    // khong bao gio de stripe nao am nen khong the ban qua so luong
+    public boolean tryReserve(int quantity) {
+        int home = home();
+
+        // nhanh: stripe cua thread con du
+        if (takeUpTo(home, quantity) == quantity) return true;
+
+        // stripe nha bi thieu -> gom tu cac stripe khac
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long taken = drain(home, quantity);
+            if (taken == quantity) return true;
+
+            // khong du thi tra lai; thread khac co the dang tam giu hang cua no nen thu them 1 lan
+            add(taken);
+            if (available() < quantity) return false;
+        }
+
+        return false;
+    }
+
+    public void add(long quantity) {
+        cells.getAndAdd(home() * PADDING, quantity);
+    }
+
+    // lay toi da max (co the it hon neu khong du), dung khi admin giam so luong
+    public long drain(long max) {
+        return drain(home(), max);
+    }
+
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) sum += cells.get(i * PADDING);
+        return sum;
+    }
+
+    private long drain(int home, long max) {
+        long taken = 0;
+        for (int i = 0; i < stripes && taken < max; i++) {
+            taken += takeUpTo((home + i) % stripes, max - taken, false);
+        }
+        return taken;
+    }
+
+    private long takeUpTo(int stripe, long quantity) {
+        return takeUpTo(stripe, quantity, true);
+    }
+
+    // CAS tru tren 1 stripe; allOrNothing = true thi chi tru khi stripe con du quantity
+    private long takeUpTo(int stripe, long quantity, boolean allOrNothing) {
+        int index = stripe * PADDING;
+
+        while (true) {
+            long current = cells.get(index);
+            long taken = Math.min(current, quantity);
+
+            if (taken <= 0 || (allOrNothing && taken < quantity)) return 0;
+
+            if (cells.compareAndSet(index, current, current - taken)) return taken;
+        }
+    }
+
+    private int home() {
+        // tron bit cua thread id de cac thread lien tiep roi vao stripe khac nhau
+        int hash = (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32);
+        return Math.floorMod(hash, stripes);
+    }
+}
@@ -13,16 +13,19 @@ import org.mapstruct.MappingTarget;
 public interface OrderDetailMapper {
     @Mapping(target = "product", ignore = true)
     @Mapping(target = "order", ignore = true)
+    @Mapping(target = "isStockFlushed", ignore = true)
     OrderDetail toOrderDetail(OrderDetailCreationRequest request);
 
     @Mapping(source = "order.id", target = "orderId")
     @Mapping(source = "product.id", target = "productId")
     OrderDetailResponse toOrderDetailResponse(OrderDetail orderDetail);
 
+    @Mapping(target = "isStockFlushed", ignore = true)
     OrderDetail updateOrderDetail(@MappingTarget OrderDetail orderDetail, OrderDetailUpdateRequest request);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "order", ignore = true)
     @Mapping(source = "quantity", target = "numberOfProducts")
+    @Mapping(target = "isStockFlushed", ignore = true)
     OrderDetail cartToOrderDetail(Cart cart);
 }
@@ -11,11 +11,13 @@ import org.mapstruct.MappingTarget;
 public interface ProductMapper {
     @Mapping(target = "category", ignore = true)
     @Mapping(target = "thumbnail", ignore = true)
+    @Mapping(target = "listThumbnail", ignore = true)
     Product toProduct(ProductRequest request);
 
     ProductResponse toProductResponse(Product product);
 
     @Mapping(target = "thumbnail", ignore = true)
+    @Mapping(target = "listThumbnail", ignore = true)
     @Mapping(target = "category", ignore = true)
     void updateProduct(@MappingTarget Product product, ProductRequest request);
 }
@@ -3,18 +3,40 @@ package com.project.shopapp.repository;
 import java.util.List;
 import java.util.Optional;
 
+import com.project.shopapp.dto.response.CartResponse;
 import com.project.shopapp.entity.Cart;
 import com.project.shopapp.entity.Product;
 import com.project.shopapp.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Page<Cart> findAllByUser(User user, Pageable pageable);
 
+    // dung thang CartResponse tu 1 cau SELECT (join users de loc theo so dien thoai),
+    // khong nap entity nen khong kich hoat @ManyToOne EAGER cua user/product/category
+    @Query(
+            value = "SELECT new com.project.shopapp.dto.response.CartResponse(c.id, c.user.id, c.product.id,"
+                    + " c.quantity, c.price, c.totalMoney, c.color, c.createdAt, c.updatedAt)"
+                    + " FROM Cart c WHERE c.user.phoneNumber = :phoneNumber",
+            countQuery = "SELECT COUNT(c) FROM Cart c WHERE c.user.phoneNumber = :phoneNumber")
+    Page<CartResponse> findCartResponsesByPhoneNumber(String phoneNumber, Pageable pageable);
+
+    // cart.pricing-mode = LAZY: gia va thanh tien lay tu products.price ngay luc doc
+    @Query(
+            value = "SELECT new com.project.shopapp.dto.response.CartResponse(c.id, c.user.id, p.id,"
+                    + " c.quantity, p.price, p.price * c.quantity, c.color, c.createdAt, c.updatedAt)"
+                    + " FROM Cart c JOIN c.product p WHERE c.user.phoneNumber = :phoneNumber",
+            countQuery = "SELECT COUNT(c) FROM Cart c WHERE c.user.phoneNumber = :phoneNumber")
+    Page<CartResponse> findPricedCartResponsesByPhoneNumber(String phoneNumber, Pageable pageable);
+
     void deleteAllByUser(User user);
 
     Optional<Cart> findByUserAndProductAndColor(User user, Product product, String color);
@@ -23,5 +45,25 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
 
     List<Cart> findAllByProduct(Product product);
 
+    long countByProductId(Long productId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.product.id = :productId AND c.id > :afterId ORDER BY c.id")
+    List<Long> findIdsByProductId(Long productId, Long afterId, Pageable pageable);
+
+    // 1 cau UPDATE cho moi gio hang chua san pham, khong nap Cart len
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cart c SET c.price = :price, c.totalMoney = :price * c.quantity WHERE c.product.id = :productId")
+    int repriceByProductId(Long productId, Float price);
+
+    // 1 lo theo khoang id, moi lo 1 transaction ngan
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cart c SET c.price = :price, c.totalMoney = :price * c.quantity"
+            + " WHERE c.product.id = :productId AND c.id > :afterId AND c.id <= :toId")
+    int repriceByProductIdAndIdRange(Long productId, Float price, Long afterId, Long toId);
+
+    // nap product cung luc voi cart, tranh moi dong gio hang 1 cau SELECT product
+    @EntityGraph(attributePaths = {"product", "product.category"})
     List<Cart> findAllByUserId(Long userId);
 }
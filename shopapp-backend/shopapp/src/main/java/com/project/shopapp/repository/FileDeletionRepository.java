@@ -0,0 +1,31 @@
+package com.project.shopapp.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import com.project.shopapp.entity.FileDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface FileDeletionRepository extends JpaRepository<FileDeletion, Long> {
+    @Query("SELECT d FROM FileDeletion d WHERE d.nextAttemptAt <= :now ORDER BY d.nextAttemptAt, d.id")
+    List<FileDeletion> findDue(LocalDateTime now, Pageable pageable);
+
+    // quet file mo coi: bo qua file da co trong hang doi (van dang cho thu lai)
+    @Query("SELECT DISTINCT d.fileName FROM FileDeletion d WHERE d.fileName IN :fileNames")
+    Set<String> findQueuedFileNames(Collection<String> fileNames);
+
+    // UPDATE thay vi save: dong co the vua bi instance khac xoa xong
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileDeletion d SET d.attempts = d.attempts + 1, d.nextAttemptAt = :nextAttemptAt, "
+            + "d.lastError = :lastError WHERE d.id = :id")
+    int reschedule(Long id, LocalDateTime nextAttemptAt, String lastError);
+}
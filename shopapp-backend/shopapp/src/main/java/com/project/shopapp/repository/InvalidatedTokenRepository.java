@@ -1,8 +1,21 @@
 package com.project.shopapp.repository;
 
+import java.util.Date;
+import java.util.List;
+
 import com.project.shopapp.entity.InvalidatedToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {}
+public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {
+    List<InvalidatedToken> findAllByExpiryTimeAfter(Date time);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM InvalidatedToken t WHERE t.expiryTime < :time")
+    int deleteAllExpiredBefore(Date time);
+}
@@ -1,16 +1,59 @@
 package com.project.shopapp.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import com.project.shopapp.dto.response.OrderDetailResponse;
 import com.project.shopapp.entity.OrderDetail;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
+public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long>, OrderDetailRepositoryCustom {
     List<OrderDetail> findAllByOrderId(Long orderId);
 
     Page<OrderDetail> findAllByOrderId(Long orderId, Pageable pageable);
+
+    // chi can id cua order/product -> lay thang cot khoa ngoai, khong nap Order/Product/Category
+    @Query(
+            value = "SELECT new com.project.shopapp.dto.response.OrderDetailResponse(od.id, od.order.id,"
+                    + " od.product.id, od.price, od.numberOfProducts, od.totalMoney, od.color)"
+                    + " FROM OrderDetail od WHERE od.order.id = :orderId",
+            countQuery = "SELECT COUNT(od) FROM OrderDetail od WHERE od.order.id = :orderId")
+    Page<OrderDetailResponse> findResponsesByOrderId(Long orderId, Pageable pageable);
+
+    // claim cac dong trong transaction flush: instance khac dang flush thi bo qua cac dong no dang giu
+    // (SKIP LOCKED tren MySQL, dialect khong ho tro thi cho khoa roi danh gia lai dieu kien)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "" + LockOptions.SKIP_LOCKED))
+    @Query("SELECT od.id AS id, od.product.id AS productId, od.numberOfProducts AS quantity"
+            + " FROM OrderDetail od WHERE od.isStockFlushed = false ORDER BY od.id")
+    List<PendingStock> findPendingStock(Pageable pageable);
+
+    // ton kho thuc = products.quantity tru phan chua flush, doc trong 1 cau de 2 gia tri cung 1 thoi diem
+    @Query("SELECT p.quantity - (SELECT COALESCE(SUM(od.numberOfProducts), 0) FROM OrderDetail od"
+            + " WHERE od.product = p AND od.isStockFlushed = false) FROM Product p WHERE p.id = :productId")
+    Long calculateStock(Long productId);
+
+    @Modifying
+    @Query("UPDATE OrderDetail od SET od.isStockFlushed = true WHERE od.id IN :ids")
+    int markStockFlushed(Collection<Long> ids);
+
+    interface PendingStock {
+        Long getId();
+
+        Long getProductId();
+
+        Integer getQuantity();
+    }
 }
@@ -0,0 +1,9 @@
+package com.project.shopapp.repository;
+
+import java.util.List;
+
+import com.project.shopapp.entity.OrderDetail;
+
+public interface OrderDetailRepositoryCustom {
+    void insertAll(List<OrderDetail> orderDetails);
+}
@@ -4,6 +4,7 @@ import com.project.shopapp.entity.Order;
 import com.project.shopapp.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
@@ -11,6 +12,8 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface OrderRepository
         extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>, OrderRepositoryCustom {
+    // OrderResponse can userId: nap user cung cau SELECT thay vi 1 cau cho moi user khac nhau
+    @EntityGraph(attributePaths = "user")
     Page<Order> findAll(Pageable pageable);
 
     Page<Order> findAllByUser(User user, Pageable pageable);
@@ -1,10 +1,13 @@
 package com.project.shopapp.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import com.project.shopapp.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface OrderRepositoryCustom {
     Page<Order> findOrdersByQuerydsl(
@@ -17,4 +20,38 @@ public interface OrderRepositoryCustom {
             String status,
             Long userId,
             Pageable pageable);
+
+    Slice<Order> findOrdersSliceByQuerydsl(
+            String keyword,
+            Float totalMoneyFrom,
+            Float totalMoneyTo,
+            LocalDate startDate,
+            LocalDate endDate,
+            Boolean isActive,
+            String status,
+            Long userId,
+            Pageable pageable);
+
+    long countOrdersByQuerydsl(
+            String keyword,
+            Float totalMoneyFrom,
+            Float totalMoneyTo,
+            LocalDate startDate,
+            LocalDate endDate,
+            Boolean isActive,
+            String status,
+            Long userId);
+
+    List<Order> findOrdersByCursor(
+            String keyword,
+            Float totalMoneyFrom,
+            Float totalMoneyTo,
+            LocalDate startDate,
+            LocalDate endDate,
+            Boolean isActive,
+            String status,
+            Long userId,
+            LocalDateTime cursorCreatedAt,
+            Long cursorId,
+            int limit);
 }
@@ -1,10 +1,15 @@
 package com.project.shopapp.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.project.shopapp.entity.ProductImage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
@@ -12,4 +17,41 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
     List<ProductImage> findAllByProductId(Long productId);
 
     void deleteAllByProductId(Long productId);
+
+    // 1 cau DELETE thay vi nap roi xoa tung dong; clear de cac anh da nap truoc do khong con managed
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM ProductImage pi WHERE pi.product.id = :productId")
+    int deleteByProductId(Long productId);
+
+    long countByProductId(Long productId);
+
+    // file con duoc anh goc hoac 1 ban thu nho nao dung khong
+    @Query("SELECT COUNT(pi) > 0 FROM ProductImage pi WHERE pi.imageUrl = :url OR pi.thumbnailUrl = :url"
+            + " OR pi.detailUrl = :url OR pi.zoomUrl = :url")
+    boolean existsByUrl(String url);
+
+    // Doi anh chinh bang 1 cau UPDATE (is_primary = (id = :imageId)), chi cham cac dong thuc su doi gia tri
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ProductImage pi SET pi.isPrimary = CASE WHEN pi.id = :imageId THEN true ELSE false END"
+            + " WHERE pi.product.id = :productId"
+            + " AND ((pi.id = :imageId AND (pi.isPrimary IS NULL OR pi.isPrimary = false))"
+            + " OR (pi.id <> :imageId AND pi.isPrimary = true))")
+    int switchPrimary(Long productId, Long imageId);
+
+    // trong cac ten file, ten nao con duoc anh goc hoac ban thu nho dung
+    @Query("SELECT pi.imageUrl FROM ProductImage pi WHERE pi.imageUrl IN :urls"
+            + " UNION SELECT pi.thumbnailUrl FROM ProductImage pi WHERE pi.thumbnailUrl IN :urls"
+            + " UNION SELECT pi.detailUrl FROM ProductImage pi WHERE pi.detailUrl IN :urls"
+            + " UNION SELECT pi.zoomUrl FROM ProductImage pi WHERE pi.zoomUrl IN :urls")
+    List<String> findUsedUrls(Collection<String> urls);
+
+    @Query("SELECT pi.id FROM ProductImage pi WHERE pi.thumbnailUrl IS NULL ORDER BY pi.id")
+    List<Long> findIdsWithoutVariants(Pageable pageable);
+
+    // chi ghi khi anh goc van la anh da dung de tao (khong ghi de neu anh bi doi/xoa trong luc tao)
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProductImage pi SET pi.thumbnailUrl = :thumbnailUrl, pi.detailUrl = :detailUrl,"
+            + " pi.zoomUrl = :zoomUrl WHERE pi.id = :id AND pi.imageUrl = :imageUrl")
+    int updateVariants(Long id, String imageUrl, String thumbnailUrl, String detailUrl, String zoomUrl);
 }
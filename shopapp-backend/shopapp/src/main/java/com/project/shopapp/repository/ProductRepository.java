@@ -1,24 +1,74 @@
 package com.project.shopapp.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import com.project.shopapp.entity.Product;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     boolean existsByName(String name);
 
+    boolean existsByThumbnailOrListThumbnail(String thumbnail, String listThumbnail);
+
+    @Query("SELECT p.thumbnail FROM Product p WHERE p.thumbnail IN :thumbnails"
+            + " UNION SELECT p.listThumbnail FROM Product p WHERE p.listThumbnail IN :thumbnails")
+    List<String> findUsedThumbnails(Collection<String> thumbnails);
+
+    @Query("SELECT p.id FROM Product p WHERE p.listThumbnail IS NULL AND p.thumbnail <> '' ORDER BY p.id")
+    List<Long> findIdsWithoutListThumbnail(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Product p SET p.listThumbnail = :listThumbnail WHERE p.id = :id AND p.thumbnail = :thumbnail")
+    int updateListThumbnail(Long id, String thumbnail, String listThumbnail);
+
+    // JOIN FETCH: category di cung cau SELECT thay vi 1 cau rieng cho moi category
     @Query(
-            """
+            value =
+                    """
 			SELECT p FROM Product p
-			LEFT JOIN Category c ON p.category.id = c.id
+			LEFT JOIN FETCH p.category c
+			WHERE (:keyword IS NULL OR TRIM(:keyword) = ''
+				OR LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))
+				OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))
+				OR LOWER(c.name) LIKE LOWER(CONCAT('%', :keyword, '%')))
+			""",
+            countQuery =
+                    """
+			SELECT COUNT(p) FROM Product p
+			LEFT JOIN p.category c
 			WHERE (:keyword IS NULL OR TRIM(:keyword) = ''
 				OR LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))
 				OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))
 				OR LOWER(c.name) LIKE LOWER(CONCAT('%', :keyword, '%')))
 			""")
     Page<Product> findByKeyword(String keyword, Pageable pageable);
+
+    // khoa dong san pham trong transaction (vd. gioi han so anh khi upload dong thoi)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :productId")
+    Optional<Product> findByIdForUpdate(Long productId);
+
+    @Query("SELECT p.price FROM Product p WHERE p.id = :productId")
+    Optional<Float> findPriceById(Long productId);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAllById(Iterable<Long> ids);
+
+    // nap theo lo (keyset tren id) kem category, khong COUNT va khong 1 cau SELECT category cho moi san pham
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
@@ -1,10 +1,34 @@
 package com.project.shopapp.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
 import com.project.shopapp.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface ProductRepositoryCustom {
     Page<Product> findProductsByQuerydsl(
             String keyword, Float fromPrice, Float toPrice, Long categoryId, Boolean isActive, Pageable pageable);
+
+    Slice<Product> findProductsSliceByQuerydsl(
+            String keyword, Float fromPrice, Float toPrice, Long categoryId, Boolean isActive, Pageable pageable);
+
+    long countProductsByQuerydsl(String keyword, Float fromPrice, Float toPrice, Long categoryId, Boolean isActive);
+
+    long reserveQuantities(Map<Long, Integer> quantities);
+
+    long adjustQuantities(Map<Long, Integer> deltas);
+
+    List<Product> findProductsByCursor(
+            String keyword,
+            Float fromPrice,
+            Float toPrice,
+            Long categoryId,
+            Boolean isActive,
+            LocalDateTime cursorCreatedAt,
+            Long cursorId,
+            int limit);
 }
@@ -5,6 +5,7 @@ import java.util.Optional;
 import com.project.shopapp.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
@@ -14,6 +15,8 @@ public interface UserRepository
         extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>, UserRepositoryCustom {
     boolean existsByPhoneNumber(String phoneNumber);
 
+    // kem roles: PrincipalCache va sinh token deu can
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByPhoneNumber(String phoneNumber);
 
     Page<User> findAll(Pageable pageable);
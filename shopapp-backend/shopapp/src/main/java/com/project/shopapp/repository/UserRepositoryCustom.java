@@ -1,12 +1,30 @@
 package com.project.shopapp.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import com.project.shopapp.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface UserRepositoryCustom {
     Page<User> findUsersByQuerydsl(
             String keyword, Boolean isActive, LocalDate startDate, LocalDate endDate, Long roleId, Pageable pageable);
+
+    Slice<User> findUsersSliceByQuerydsl(
+            String keyword, Boolean isActive, LocalDate startDate, LocalDate endDate, Long roleId, Pageable pageable);
+
+    long countUsersByQuerydsl(String keyword, Boolean isActive, LocalDate startDate, LocalDate endDate, Long roleId);
+
+    List<User> findUsersByCursor(
+            String keyword,
+            Boolean isActive,
+            LocalDate startDate,
+            LocalDate endDate,
+            Long roleId,
+            LocalDateTime cursorCreatedAt,
+            Long cursorId,
+            int limit);
 }
@@ -7,7 +7,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 
-@FeignClient(name = "outbound-github-identity", url = "https://github.com")
+@FeignClient(name = "outbound-github-identity", url = "${outbound.identity.github.token-url:https://github.com}")
 public interface OutboundGithubIdentityClient {
     @PostMapping(value = "/login/oauth/access_token",
             produces = MediaType.APPLICATION_JSON_VALUE,
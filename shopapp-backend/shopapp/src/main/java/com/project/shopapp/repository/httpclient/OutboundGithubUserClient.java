@@ -5,7 +5,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 
-@FeignClient(name = "outbound-github-user", url = "https://api.github.com")
+@FeignClient(name = "outbound-github-user", url = "${outbound.identity.github.api-url:https://api.github.com}")
 public interface OutboundGithubUserClient {
     @GetMapping("/user")
     OutboundGithubUserResponse getUserInfo(@RequestHeader("Authorization") String authorization);
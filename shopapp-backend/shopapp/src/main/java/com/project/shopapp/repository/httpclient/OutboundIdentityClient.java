@@ -7,7 +7,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 
-@FeignClient(name = "outbound-identity", url = "https://oauth2.googleapis.com")
+@FeignClient(name = "outbound-identity", url = "${outbound.identity.google.token-url:https://oauth2.googleapis.com}")
 public interface OutboundIdentityClient {
     @PostMapping(value = "/token", produces = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
     ExchangeTokenResponse exchangeToken(@QueryMap ExchangeTokenRequest request);
@@ -5,7 +5,7 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "outbound-user", url = "https://www.googleapis.com")
+@FeignClient(name = "outbound-user", url = "${outbound.identity.google.user-info-url:https://www.googleapis.com}")
 public interface OutboundUserClient {
     @GetMapping("/oauth2/v1/userinfo")
     OutboundUserResponse getUserInfo(@RequestParam("alt") String alt,
@@ -0,0 +1,47 @@
+package com.project.shopapp.repository.impl;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.project.shopapp.entity.OrderDetail;
+import com.project.shopapp.repository.OrderDetailRepositoryCustom;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+public class OrderDetailRepositoryCustomImpl implements OrderDetailRepositoryCustom {
+    // so dong toi da trong 1 cau INSERT
+    static final int BATCH_SIZE = 500;
+
+    private final EntityManager entityManager;
+
+    public OrderDetailRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // id IDENTITY khien Hibernate khong batch duoc -> tu ghep 1 cau INSERT nhieu dong
+    @Override
+    public void insertAll(List<OrderDetail> orderDetails) {
+        for (int from = 0; from < orderDetails.size(); from += BATCH_SIZE) {
+            List<OrderDetail> batch = orderDetails.subList(from, Math.min(from + BATCH_SIZE, orderDetails.size()));
+
+            String sql = "INSERT INTO order_details (order_id, product_id, price, number_of_products, total_money, color,"
+                    + " is_stock_flushed)"
+                    + " VALUES " + String.join(", ", Collections.nCopies(batch.size(), "(?, ?, ?, ?, ?, ?, ?)"));
+
+            Query query = entityManager.createNativeQuery(sql);
+
+            int position = 1;
+            for (OrderDetail orderDetail : batch) {
+                query.setParameter(position++, orderDetail.getOrder().getId());
+                query.setParameter(position++, orderDetail.getProduct().getId());
+                query.setParameter(position++, orderDetail.getPrice());
+                query.setParameter(position++, orderDetail.getNumberOfProducts());
+                query.setParameter(position++, orderDetail.getTotalMoney());
+                query.setParameter(position++, orderDetail.getColor());
+                query.setParameter(position++, orderDetail.getIsStockFlushed());
+            }
+
+            query.executeUpdate();
+        }
+    }
+}
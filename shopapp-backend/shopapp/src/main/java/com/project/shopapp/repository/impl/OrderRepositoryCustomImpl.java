@@ -1,6 +1,7 @@
 package com.project.shopapp.repository.impl;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import com.project.shopapp.entity.Order;
@@ -16,6 +17,9 @@ import jakarta.persistence.EntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
 
@@ -37,9 +41,114 @@ public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
             Long userId,
             Pageable pageable) {
 
+        long total = countOrdersByQuerydsl(
+                keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive, status, userId);
+
+        List<Order> content = query(
+                        filter(keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive, status, userId),
+                        pageable.getSort())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // khong COUNT: lay them 1 ban ghi de biet con trang sau hay khong
+    @Override
+    public Slice<Order> findOrdersSliceByQuerydsl(
+            String keyword,
+            Float totalMoneyFrom,
+            Float totalMoneyTo,
+            LocalDate startDate,
+            LocalDate endDate,
+            Boolean isActive,
+            String status,
+            Long userId,
+            Pageable pageable) {
+
+        List<Order> content = query(
+                        filter(keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive, status, userId),
+                        pageable.getSort())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1L)
+                .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public long countOrdersByQuerydsl(
+            String keyword,
+            Float totalMoneyFrom,
+            Float totalMoneyTo,
+            LocalDate startDate,
+            LocalDate endDate,
+            Boolean isActive,
+            String status,
+            Long userId) {
         QOrder order = QOrder.order;
         QUser user = QUser.user;
 
+        Long total = jpaQueryFactory
+                .select(order.count())
+                .from(order)
+                .leftJoin(order.user, user)
+                .where(filter(keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive, status, userId))
+                .fetchOne();
+
+        return total != null ? total : 0;
+    }
+
+    @Override
+    public List<Order> findOrdersByCursor(
+            String keyword,
+            Float totalMoneyFrom,
+            Float totalMoneyTo,
+            LocalDate startDate,
+            LocalDate endDate,
+            Boolean isActive,
+            String status,
+            Long userId,
+            LocalDateTime cursorCreatedAt,
+            Long cursorId,
+            int limit) {
+
+        QOrder order = QOrder.order;
+        QUser user = QUser.user;
+
+        BooleanBuilder builder =
+                filter(keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive, status, userId);
+
+        // seek thay cho offset: chi lay cac ban ghi nam sau (createdAt, id) cua cursor
+        if (cursorCreatedAt != null) {
+            builder.and(order.createdAt
+                    .lt(cursorCreatedAt)
+                    .or(order.createdAt.eq(cursorCreatedAt).and(order.id.lt(cursorId))));
+        }
+
+        return jpaQueryFactory
+                .selectFrom(order)
+                .leftJoin(order.user, user)
+                .where(builder)
+                .orderBy(order.createdAt.desc(), order.id.desc())
+                .limit(limit)
+                .fetch();
+    }
+
+    private BooleanBuilder filter(
+            String keyword,
+            Float totalMoneyFrom,
+            Float totalMoneyTo,
+            LocalDate startDate,
+            LocalDate endDate,
+            Boolean isActive,
+            String status,
+            Long userId) {
+        QOrder order = QOrder.order;
+
         BooleanBuilder builder = new BooleanBuilder();
 
         if (keyword != null && !keyword.isEmpty()) {
@@ -63,10 +172,17 @@ public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
 
         if (userId != null) builder.and(order.user.id.eq(userId));
 
+        return builder;
+    }
+
+    private JPAQuery<Order> query(BooleanBuilder builder, Sort sort) {
+        QOrder order = QOrder.order;
+        QUser user = QUser.user;
+
         JPAQuery<Order> query =
                 jpaQueryFactory.selectFrom(order).leftJoin(order.user, user).where(builder);
 
-        pageable.getSort().forEach(order1 -> {
+        sort.forEach(order1 -> {
             Path<?> path =
                     switch (order1.getProperty()) {
                         case "totalMoney" -> order.totalMoney;
@@ -79,16 +195,6 @@ public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
                             : ((ComparableExpressionBase<?>) path).desc());
         });
 
-        // sau khi dung fetchCount bi xoa mat off ser va limit ->loi khi goi fetch sau do
-        long total = jpaQueryFactory
-                .selectFrom(order)
-                .leftJoin(order.user, user)
-                .where(builder)
-                .fetchCount();
-
-        List<Order> content =
-                query.offset(pageable.getOffset()).limit(pageable.getPageSize()).fetch();
-
-        return new PageImpl<>(content, pageable, total);
+        return query;
     }
 }
@@ -1,25 +1,34 @@
 package com.project.shopapp.repository.impl;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import com.project.shopapp.entity.Product;
-import com.project.shopapp.entity.QCategory;
 import com.project.shopapp.entity.QProduct;
 import com.project.shopapp.repository.ProductRepositoryCustom;
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.dsl.ComparableExpressionBase;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
 public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
 
+    private final EntityManager entityManager;
     private final JPAQueryFactory jpaQueryFactory;
 
     public ProductRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
         this.jpaQueryFactory = new JPAQueryFactory(entityManager);
     }
 
@@ -27,49 +36,180 @@ public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
     public Page<Product> findProductsByQuerydsl(
             String keyword, Float fromPrice, Float toPrice, Long categoryId, Boolean isActive, Pageable pageable) {
 
+        long total = countProductsByQuerydsl(keyword, fromPrice, toPrice, categoryId, isActive);
+
+        List<Product> content = sort(
+                        withCategory(filter(keyword, fromPrice, toPrice, categoryId, isActive)), pageable.getSort())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // khong COUNT: lay them 1 ban ghi de biet con trang sau hay khong
+    @Override
+    public Slice<Product> findProductsSliceByQuerydsl(
+            String keyword, Float fromPrice, Float toPrice, Long categoryId, Boolean isActive, Pageable pageable) {
+
+        List<Product> content = sort(
+                        withCategory(filter(keyword, fromPrice, toPrice, categoryId, isActive)), pageable.getSort())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1L)
+                .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public long countProductsByQuerydsl(
+            String keyword, Float fromPrice, Float toPrice, Long categoryId, Boolean isActive) {
         QProduct product = QProduct.product;
-        QCategory category = QCategory.category;
 
-        JPAQuery<Product> query = jpaQueryFactory.selectFrom(product);
+        Long total = jpaQueryFactory
+                .select(product.count())
+                .from(product)
+                .where(predicate(keyword, fromPrice, toPrice, categoryId, isActive))
+                .fetchOne();
 
-        if (keyword != null && !keyword.isEmpty()) {
-            query.where(product.name.containsIgnoreCase(keyword).or(product.description.containsIgnoreCase(keyword)));
+        return total != null ? total : 0;
+    }
+
+    // 1 cau UPDATE ... SET quantity = quantity - CASE id WHEN ? THEN ? ... END cho ca don hang,
+    // chi tru khi con du hang: dong nao khong du thi khong duoc update -> so dong bi anh huong < so san pham
+    // dung native query: HQL voi CASE nhieu nhanh phai dich lai moi lan goi, cham hon nhieu
+    @Override
+    public long reserveQuantities(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return 0;
+
+        String sql = "UPDATE products SET quantity = quantity - " + caseById(quantities.size())
+                + " WHERE id IN (" + placeholders(quantities.size()) + ")"
+                + " AND quantity >= " + caseById(quantities.size());
+
+        Query query = entityManager.createNativeQuery(sql);
+
+        int position = bindCase(query, 1, quantities);
+        for (Long productId : quantities.keySet()) query.setParameter(position++, productId);
+        bindCase(query, position, quantities);
+
+        return query.executeUpdate();
+    }
+
+    // cong/tru khong dieu kien (delta am de tru), dung cho tra hang va ghi bo dem hot SKU xuong DB
+    @Override
+    public long adjustQuantities(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) return 0;
+
+        String sql = "UPDATE products SET quantity = quantity + " + caseById(deltas.size())
+                + " WHERE id IN (" + placeholders(deltas.size()) + ")";
+
+        Query query = entityManager.createNativeQuery(sql);
+
+        int position = bindCase(query, 1, deltas);
+        for (Long productId : deltas.keySet()) query.setParameter(position++, productId);
+
+        return query.executeUpdate();
+    }
+
+    private static String caseById(int size) {
+        return "CASE id" + " WHEN ? THEN ?".repeat(size) + " ELSE 0 END";
+    }
+
+    private static String placeholders(int size) {
+        return String.join(", ", Collections.nCopies(size, "?"));
+    }
+
+    private static int bindCase(Query query, int position, Map<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            query.setParameter(position++, entry.getKey());
+            query.setParameter(position++, entry.getValue());
         }
 
-        if (fromPrice != null) query.where(product.price.goe(fromPrice));
+        return position;
+    }
 
-        if (toPrice != null) query.where(product.price.loe(toPrice));
+    @Override
+    public List<Product> findProductsByCursor(
+            String keyword,
+            Float fromPrice,
+            Float toPrice,
+            Long categoryId,
+            Boolean isActive,
+            LocalDateTime cursorCreatedAt,
+            Long cursorId,
+            int limit) {
 
-        if (isActive != null) {
-            query.where(product.isActive.eq(isActive));
+        QProduct product = QProduct.product;
+
+        JPAQuery<Product> query = withCategory(filter(keyword, fromPrice, toPrice, categoryId, isActive));
+
+        // seek thay cho offset: chi lay cac ban ghi nam sau (createdAt, id) cua cursor
+        if (cursorCreatedAt != null) {
+            query.where(product.createdAt
+                    .lt(cursorCreatedAt)
+                    .or(product.createdAt.eq(cursorCreatedAt).and(product.id.lt(cursorId))));
         }
 
-        // leftJoin hay innerJoin nhu nhau vi chi join khi id != null -> co where
-        if (categoryId != null) {
-            query.innerJoin(product.category, category).where(category.id.eq(categoryId));
+        return query.orderBy(product.createdAt.desc(), product.id.desc())
+                .limit(limit)
+                .fetch();
+    }
+
+    private JPAQuery<Product> filter(
+            String keyword, Float fromPrice, Float toPrice, Long categoryId, Boolean isActive) {
+        return jpaQueryFactory
+                .selectFrom(QProduct.product)
+                .where(predicate(keyword, fromPrice, toPrice, categoryId, isActive));
+    }
+
+    private BooleanBuilder predicate(
+            String keyword, Float fromPrice, Float toPrice, Long categoryId, Boolean isActive) {
+        QProduct product = QProduct.product;
+
+        BooleanBuilder builder = new BooleanBuilder();
+
+        if (keyword != null && !keyword.isEmpty()) {
+            builder.and(product.name.containsIgnoreCase(keyword).or(product.description.containsIgnoreCase(keyword)));
         }
 
-        long total = query.fetchCount();
-
-        if (pageable.getSort().isSorted()) {
-            pageable.getSort().forEach(order -> {
-                Path<?> path =
-                        switch (order.getProperty()) {
-                            case "price" -> product.price;
-                            default -> product.createdAt;
-                        };
-
-                query.orderBy(
-                        order.isAscending()
-                                ? ((ComparableExpressionBase<?>) path).asc()
-                                : ((ComparableExpressionBase<?>) path).desc());
-            });
+        if (fromPrice != null) builder.and(product.price.goe(fromPrice));
+
+        if (toPrice != null) builder.and(product.price.loe(toPrice));
+
+        if (isActive != null) {
+            builder.and(product.isActive.eq(isActive));
         }
 
-        query.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        // so sanh thang tren khoa ngoai category_id, khong can join
+        if (categoryId != null) builder.and(product.category.id.eq(categoryId));
+
+        return builder;
+    }
 
-        List<Product> content = query.fetch();
+    // chi cho query lay noi dung (COUNT khong fetch join duoc): nap category cung cau SELECT,
+    // khong de @ManyToOne EAGER ban them 1 cau cho moi category
+    private JPAQuery<Product> withCategory(JPAQuery<Product> query) {
+        return query.leftJoin(QProduct.product.category).fetchJoin();
+    }
 
-        return new PageImpl<>(content, pageable, total);
+    private JPAQuery<Product> sort(JPAQuery<Product> query, Sort sort) {
+        QProduct product = QProduct.product;
+
+        sort.forEach(order -> {
+            Path<?> path =
+                    switch (order.getProperty()) {
+                        case "price" -> product.price;
+                        default -> product.createdAt;
+                    };
+
+            query.orderBy(
+                    order.isAscending()
+                            ? ((ComparableExpressionBase<?>) path).asc()
+                            : ((ComparableExpressionBase<?>) path).desc());
+        });
+
+        return query;
     }
 }
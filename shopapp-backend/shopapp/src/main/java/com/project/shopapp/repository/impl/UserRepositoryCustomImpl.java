@@ -1,12 +1,14 @@
 package com.project.shopapp.repository.impl;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import com.project.shopapp.entity.QRole;
 import com.project.shopapp.entity.QUser;
 import com.project.shopapp.entity.User;
 import com.project.shopapp.repository.UserRepositoryCustom;
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Path;
 import com.querydsl.core.types.dsl.ComparableExpressionBase;
 import com.querydsl.jpa.impl.JPAQuery;
@@ -15,6 +17,8 @@ import jakarta.persistence.EntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 
 public class UserRepositoryCustomImpl implements UserRepositoryCustom {
@@ -29,28 +33,111 @@ public class UserRepositoryCustomImpl implements UserRepositoryCustom {
     public Page<User> findUsersByQuerydsl(
             String keyword, Boolean isActive, LocalDate startDate, LocalDate endDate, Long roleId, Pageable pageable) {
 
+        long total = countUsersByQuerydsl(keyword, isActive, startDate, endDate, roleId);
+
+        List<User> content = sort(filter(keyword, isActive, startDate, endDate, roleId), pageable.getSort())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    // khong COUNT: lay them 1 ban ghi de biet con trang sau hay khong
+    @Override
+    public Slice<User> findUsersSliceByQuerydsl(
+            String keyword, Boolean isActive, LocalDate startDate, LocalDate endDate, Long roleId, Pageable pageable) {
+
+        List<User> content = sort(filter(keyword, isActive, startDate, endDate, roleId), pageable.getSort())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1L)
+                .fetch();
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    // COUNT rieng: join roles khong fetch, dem distinct vi 1 user co the co nhieu role
+    @Override
+    public long countUsersByQuerydsl(
+            String keyword, Boolean isActive, LocalDate startDate, LocalDate endDate, Long roleId) {
+        QUser user = QUser.user;
+
+        JPAQuery<Long> query = jpaQueryFactory.select(user.countDistinct()).from(user);
+
+        if (roleId != null) query.innerJoin(user.roles, QRole.role);
+
+        Long total = query.where(predicate(keyword, isActive, startDate, endDate, roleId))
+                .fetchOne();
+
+        return total != null ? total : 0;
+    }
+
+    @Override
+    public List<User> findUsersByCursor(
+            String keyword,
+            Boolean isActive,
+            LocalDate startDate,
+            LocalDate endDate,
+            Long roleId,
+            LocalDateTime cursorCreatedAt,
+            Long cursorId,
+            int limit) {
+
+        QUser user = QUser.user;
+
+        JPAQuery<User> query = filter(keyword, isActive, startDate, endDate, roleId);
+
+        // seek thay cho offset: chi lay cac ban ghi nam sau (createdAt, id) cua cursor
+        if (cursorCreatedAt != null) {
+            query.where(user.createdAt
+                    .lt(cursorCreatedAt)
+                    .or(user.createdAt.eq(cursorCreatedAt).and(user.id.lt(cursorId))));
+        }
+
+        return query.orderBy(user.createdAt.desc(), user.id.desc())
+                .limit(limit)
+                .fetch();
+    }
+
+    private JPAQuery<User> filter(
+            String keyword, Boolean isActive, LocalDate startDate, LocalDate endDate, Long roleId) {
         QUser user = QUser.user;
-        QRole role = QRole.role;
 
         JPAQuery<User> query = jpaQueryFactory.selectFrom(user).distinct();
 
+        if (roleId != null) query.innerJoin(user.roles, QRole.role).fetchJoin();
+
+        return query.where(predicate(keyword, isActive, startDate, endDate, roleId));
+    }
+
+    private BooleanBuilder predicate(
+            String keyword, Boolean isActive, LocalDate startDate, LocalDate endDate, Long roleId) {
+        QUser user = QUser.user;
+
+        BooleanBuilder builder = new BooleanBuilder();
+
         if (keyword != null && !keyword.isEmpty()) {
-            query.where(user.fullName
+            builder.and(user.fullName
                     .containsIgnoreCase(keyword)
                     .or(user.phoneNumber.contains(keyword))
                     .or(user.address.containsIgnoreCase(keyword)));
         }
 
-        if (isActive != null) query.where(user.isActive.eq(isActive));
+        if (isActive != null) builder.and(user.isActive.eq(isActive));
+
+        if (startDate != null) builder.and(user.dateOfBirth.goe(startDate));
 
-        if (startDate != null) query.where(user.dateOfBirth.goe(startDate));
+        if (endDate != null) builder.and(user.dateOfBirth.loe(endDate));
 
-        if (endDate != null) query.where(user.dateOfBirth.loe(endDate));
+        if (roleId != null) builder.and(QRole.role.id.eq(roleId));
 
-        if (roleId != null) query.innerJoin(user.roles, role).fetchJoin().where(role.id.eq(roleId));
+        return builder;
+    }
 
-        // fetchCount phai dat truoc offset va limit neu dat sau se xoa mat dk cua query
-        long total = query.fetchCount();
+    private JPAQuery<User> sort(JPAQuery<User> query, Sort sort) {
+        QUser user = QUser.user;
 
         //        for (Sort.Order order : pageable.getSort()) {
         //            PathBuilder<User> pathBuilder = new PathBuilder<>(User.class, "user");
@@ -68,25 +155,19 @@ public class UserRepositoryCustomImpl implements UserRepositoryCustom {
         //                    : ((ComparableExpressionBase<?>) expression).desc());
         //        }
 
-        if (pageable.getSort().isSorted()) {
-            for (Sort.Order order : pageable.getSort()) {
-                Path<?> path =
-                        switch (order.getProperty()) {
-                            case "dateOfBirth" -> user.dateOfBirth;
-                            default -> user.createdAt;
-                        };
-
-                query.orderBy(
-                        order.isAscending()
-                                ? ((ComparableExpressionBase<?>) path).asc()
-                                : ((ComparableExpressionBase<?>) path).desc());
-            }
+        for (Sort.Order order : sort) {
+            Path<?> path =
+                    switch (order.getProperty()) {
+                        case "dateOfBirth" -> user.dateOfBirth;
+                        default -> user.createdAt;
+                    };
+
+            query.orderBy(
+                    order.isAscending()
+                            ? ((ComparableExpressionBase<?>) path).asc()
+                            : ((ComparableExpressionBase<?>) path).desc());
         }
 
-        query.offset(pageable.getOffset()).limit(pageable.getPageSize());
-
-        List<User> content = query.fetch();
-
-        return new PageImpl<>(content, pageable, total);
+        return query;
     }
 }
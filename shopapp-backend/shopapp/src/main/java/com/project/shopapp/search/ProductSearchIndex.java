@@ -0,0 +1,321 @@
+package com.project.shopapp.search;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.repository.ProductRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Inverted index trong bo nho cho tim kiem san pham, thay cho LIKE '%keyword%'.
+// Moi instance co index rieng: ghi tren instance khac chi thay sau lan rebuild dinh ky
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Slf4j
+public class ProductSearchIndex {
+    static final int NAME_WEIGHT = 3;
+    static final int CATEGORY_WEIGHT = 2;
+    static final int DESCRIPTION_WEIGHT = 1;
+    static final int EXACT_MATCH_BOOST = 2;
+    static final int REBUILD_BATCH_SIZE = 500;
+    static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    final ProductRepository productRepository;
+
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (productId -> diem cua term trong san pham)
+    NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    Map<Long, IndexedProduct> documents = new HashMap<>();
+
+    // ghi trong luc rebuild (null = da xoa), ap lai len index moi de khong bi snapshot cu de mat
+    Map<Long, IndexedProduct> pendingChanges = null;
+
+    volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+
+    @Scheduled(
+            fixedDelayString = "${product.search-index.rebuild-interval:300000}",
+            initialDelayString = "${product.search-index.rebuild-interval:300000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // doc DB ngoai lock: tim kiem van chay tren index cu trong luc nap
+        ProductSearchIndex fresh = new ProductSearchIndex(productRepository);
+        try {
+            Pageable pageable = PageRequest.ofSize(REBUILD_BATCH_SIZE);
+            long lastId = 0;
+            List<Product> batch;
+            do {
+                batch = productRepository.findByIdGreaterThanOrderByIdAsc(lastId, pageable);
+                batch.forEach(fresh::addDocument);
+                if (!batch.isEmpty()) lastId = batch.get(batch.size() - 1).getId();
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } catch (Exception e) {
+            // index loi thi giu index cu, chua co index thi van tim kiem bang DB
+            log.error("Cannot build product search index", e);
+
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges.forEach((productId, document) -> {
+                fresh.removeDocument(productId);
+                if (document != null) fresh.addDocument(document);
+            });
+            pendingChanges = null;
+
+            postings = fresh.postings;
+            documents = fresh.documents;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info(
+                "Product search index built: {} products in {} ms",
+                documents.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Product product) {
+        IndexedProduct document = IndexedProduct.from(product);
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            addDocument(document);
+            if (pendingChanges != null) pendingChanges.put(product.getId(), document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+            if (pendingChanges != null) pendingChanges.put(productId, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateCategoryName(Long categoryId, String categoryName) {
+        lock.writeLock().lock();
+        try {
+            List<IndexedProduct> affected = documents.values().stream()
+                    .filter(document -> Objects.equals(document.categoryId(), categoryId))
+                    .toList();
+
+            for (IndexedProduct document : affected) {
+                removeDocument(document.id());
+                addDocument(document.withCategoryName(categoryName));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // sort khong co -> xep theo do lien quan; co sort -> theo price/createdAt giong ProductRepositoryCustomImpl
+    public SearchResult search(String keyword, Predicate<IndexedProduct> filter, Pageable pageable) {
+        List<String> terms = tokenize(keyword);
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = terms.isEmpty() ? matchAll() : match(terms);
+
+            List<IndexedProduct> hits = scores.keySet().stream()
+                    .map(documents::get)
+                    .filter(filter)
+                    .sorted(comparator(pageable.getSort(), scores))
+                    .toList();
+
+            int from = (int) Math.min(pageable.getOffset(), hits.size());
+            int to = Math.min(from + pageable.getPageSize(), hits.size());
+
+            List<Long> ids =
+                    hits.subList(from, to).stream().map(IndexedProduct::id).toList();
+
+            return new SearchResult(ids, hits.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> match(List<String> terms) {
+        Map<Long, Integer> scores = null;
+
+        for (String term : terms) {
+            Map<Long, Integer> termScores = new HashMap<>();
+
+            // prefix match: moi term bat dau bang term cua query
+            for (Map.Entry<String, Map<Long, Integer>> entry :
+                    postings.subMap(term, true, term + Character.MAX_VALUE, true).entrySet()) {
+                int boost = entry.getKey().equals(term) ? EXACT_MATCH_BOOST : 1;
+                entry.getValue().forEach((id, score) -> termScores.merge(id, score * boost, Integer::sum));
+            }
+
+            // tat ca term cua query deu phai khop
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+
+            if (scores.isEmpty()) break;
+        }
+
+        return scores;
+    }
+
+    private Map<Long, Integer> matchAll() {
+        Map<Long, Integer> scores = new HashMap<>();
+        documents.keySet().forEach(id -> scores.put(id, 0));
+        return scores;
+    }
+
+    private Comparator<IndexedProduct> comparator(Sort sort, Map<Long, Integer> scores) {
+        Comparator<IndexedProduct> comparator = null;
+
+        for (Sort.Order order : sort) {
+            Comparator<IndexedProduct> next =
+                    switch (order.getProperty()) {
+                        case "price" -> Comparator.comparing(
+                                IndexedProduct::price, Comparator.nullsLast(Comparator.naturalOrder()));
+                        case "id" -> Comparator.comparing(IndexedProduct::id);
+                        default -> Comparator.comparing(
+                                IndexedProduct::createdAt, Comparator.nullsLast(Comparator.naturalOrder()));
+                    };
+
+            if (order.isDescending()) next = next.reversed();
+
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+
+        Comparator<IndexedProduct> byScore =
+                Comparator.comparing((IndexedProduct document) -> scores.get(document.id()))
+                        .reversed()
+                        .thenComparing(
+                                IndexedProduct::createdAt,
+                                Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder())
+                                        .reversed());
+
+        return comparator == null ? byScore : comparator.thenComparing(byScore);
+    }
+
+    private void addDocument(Product product) {
+        addDocument(IndexedProduct.from(product));
+    }
+
+    private void addDocument(IndexedProduct document) {
+        documents.put(document.id(), document);
+
+        Map<String, Integer> termScores = new HashMap<>();
+        tokenize(document.name()).forEach(term -> termScores.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(document.categoryName()).forEach(term -> termScores.merge(term, CATEGORY_WEIGHT, Integer::sum));
+        tokenize(document.description())
+                .forEach(term -> termScores.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+
+        termScores.forEach((term, score) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(document.id(), score));
+    }
+
+    private void removeDocument(Long productId) {
+        IndexedProduct document = documents.remove(productId);
+        if (document == null) return;
+
+        Set<String> terms = new HashSet<>();
+        terms.addAll(tokenize(document.name()));
+        terms.addAll(tokenize(document.categoryName()));
+        terms.addAll(tokenize(document.description()));
+
+        for (String term : terms) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting == null) continue;
+
+            posting.remove(productId);
+            if (posting.isEmpty()) postings.remove(term);
+        }
+    }
+
+    // lowercase + bo dau tieng Viet de "dien thoai" khop "Điện thoại"
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return Collections.emptyList();
+
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        normalized = DIACRITICS.matcher(normalized).replaceAll("").replace('đ', 'd');
+
+        return Arrays.stream(NON_WORD.split(normalized))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+
+    public record IndexedProduct(
+            Long id,
+            String name,
+            String description,
+            Long categoryId,
+            String categoryName,
+            Float price,
+            Boolean isActive,
+            LocalDateTime createdAt) {
+        static IndexedProduct from(Product product) {
+            return new IndexedProduct(
+                    product.getId(),
+                    product.getName(),
+                    product.getDescription(),
+                    product.getCategory() != null ? product.getCategory().getId() : null,
+                    product.getCategory() != null ? product.getCategory().getName() : null,
+                    product.getPrice(),
+                    product.getIsActive(),
+                    product.getCreatedAt());
+        }
+
+        IndexedProduct withCategoryName(String categoryName) {
+            return new IndexedProduct(id, name, description, categoryId, categoryName, price, isActive, createdAt);
+        }
+    }
+
+    public record SearchResult(List<Long> ids, long total) {}
+}
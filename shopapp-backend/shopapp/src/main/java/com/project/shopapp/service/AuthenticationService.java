@@ -10,17 +10,17 @@ import com.nimbusds.jose.crypto.MACSigner;
 import com.nimbusds.jose.crypto.MACVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import com.project.shopapp.cache.PrincipalCache;
+import com.project.shopapp.cache.ReferenceDataCache;
+import com.project.shopapp.cache.TokenCache;
 import com.project.shopapp.constant.PredefinedRole;
 import com.project.shopapp.dto.request.*;
 import com.project.shopapp.dto.response.AuthenticationResponse;
 import com.project.shopapp.dto.response.IntrospectResponse;
-import com.project.shopapp.entity.InvalidatedToken;
 import com.project.shopapp.entity.Role;
 import com.project.shopapp.entity.User;
 import com.project.shopapp.exception.AppException;
 import com.project.shopapp.exception.ErrorCode;
-import com.project.shopapp.repository.InvalidatedTokenRepository;
-import com.project.shopapp.repository.RoleRepository;
 import com.project.shopapp.repository.UserRepository;
 import com.project.shopapp.repository.httpclient.OutboundGithubIdentityClient;
 import com.project.shopapp.repository.httpclient.OutboundGithubUserClient;
@@ -34,8 +34,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -46,12 +44,15 @@ import org.springframework.util.StringUtils;
 @Slf4j
 public class AuthenticationService {
     UserRepository userRepository;
-    RoleRepository roleRepository;
-    InvalidatedTokenRepository invalidatedTokenRepository;
+    TokenRevocationService tokenRevocationService;
     OutboundIdentityClient outboundIdentityClient;
     OutboundGithubIdentityClient outboundGithubIdentityClient;
     OutboundUserClient outboundUserClient;
     OutboundGithubUserClient outboundGithubUserClient;
+    TokenCache tokenCache;
+    PrincipalCache principalCache;
+    ReferenceDataCache referenceDataCache;
+    PasswordHashingService passwordHashingService;
 
     @NonFinal
     @Value("${jwt.signer-key}")
@@ -102,8 +103,7 @@ public class AuthenticationService {
 
         if (!user.getIsActive()) throw new AppException(ErrorCode.DEACTIVATED_USER);
 
-        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(10);
-        boolean authenticated = passwordEncoder.matches(request.getPassword(), user.getPassword());
+        boolean authenticated = passwordHashingService.matches(request.getPassword(), user.getPassword());
 
         if (!authenticated) throw new AppException(ErrorCode.UNAUTHENTICATED);
 
@@ -132,7 +132,7 @@ public class AuthenticationService {
         //onboard user
 
         Set<Role> roles = new HashSet<>();
-        roleRepository.findByName(PredefinedRole.USER.name()).ifPresent(roles::add);
+        referenceDataCache.getRole(PredefinedRole.USER.name()).ifPresent(roles::add);
 
         var user = userRepository.findByPhoneNumber(userInfo.getEmail()).orElseGet(
                 () -> userRepository.save(User.builder()
@@ -143,6 +143,8 @@ public class AuthenticationService {
                         .roles(roles)
                         .build())
         );
+        // user vua onboard co the dang bi cache la "khong ton tai"
+        principalCache.invalidate(user.getPhoneNumber());
 
         String token = generateToken(user);
 
@@ -167,7 +169,7 @@ public class AuthenticationService {
         log.info("User info: {}", userInfo);
 
         Set<Role> roles = new HashSet<>();
-        roleRepository.findByName(PredefinedRole.USER.name()).ifPresent(roles::add);
+        referenceDataCache.getRole(PredefinedRole.USER.name()).ifPresent(roles::add);
 
         var user = userRepository.findByGithubAccountId(userInfo.getId()).orElseGet(
                 () -> userRepository.save(User.builder()
@@ -178,6 +180,8 @@ public class AuthenticationService {
                         .isActive(true)
                         .build())
         );
+        // user vua onboard co the dang bi cache la "khong ton tai"
+        principalCache.invalidate(user.getPhoneNumber());
 
         String token = generateToken(user);
 
@@ -273,12 +277,9 @@ public class AuthenticationService {
         SignedJWT signedJWT = verifyToken(request.getToken(), true);
 
         String jti = signedJWT.getJWTClaimsSet().getJWTID();
-        Date expiryTime = signedJWT.getJWTClaimsSet().getExpirationTime();
 
-        InvalidatedToken invalidatedToken =
-                InvalidatedToken.builder().id(jti).expiryTime(expiryTime).build();
-
-        invalidatedTokenRepository.save(invalidatedToken);
+        tokenRevocationService.revoke(jti, getRefreshableExpiryTime(signedJWT));
+        tokenCache.invalidate(jti);
 
         var user = userRepository
                 .findByPhoneNumber(signedJWT.getJWTClaimsSet().getSubject())
@@ -293,12 +294,9 @@ public class AuthenticationService {
             var signToken = verifyToken(request.getToken(), true);
 
             String jti = signToken.getJWTClaimsSet().getJWTID();
-            var expiryTime = signToken.getJWTClaimsSet().getExpirationTime();
-
-            InvalidatedToken invalidatedToken =
-                    InvalidatedToken.builder().id(jti).expiryTime(expiryTime).build();
 
-            invalidatedTokenRepository.save(invalidatedToken);
+            tokenRevocationService.revoke(jti, getRefreshableExpiryTime(signToken));
+            tokenCache.invalidate(jti);
         } catch (AppException exception) {
             log.info("Token already expired");
         }
@@ -349,23 +347,32 @@ public class AuthenticationService {
         boolean verified = signedJWT.verify(verifier);
 
         var expiryTime = (isRefresh)
-                ? new Date(signedJWT
-                .getJWTClaimsSet()
-                .getIssueTime()
-                .toInstant()
-                .plus(REFRESHABLE_DURATION, ChronoUnit.SECONDS)
-                .toEpochMilli())
+                ? getRefreshableExpiryTime(signedJWT)
                 : signedJWT.getJWTClaimsSet().getExpirationTime();
 
         if (!(verified && expiryTime.after(new Date()))) throw new AppException(ErrorCode.UNAUTHENTICATED);
 
         var phoneNumber = signedJWT.getJWTClaimsSet().getSubject();
-        if (userRepository.existsByPhoneNumberAndIsActive(phoneNumber, false))
+        if (principalCache.isDeactivated(phoneNumber))
             throw new AppException(ErrorCode.UNAUTHENTICATED);
 
-        if (invalidatedTokenRepository.existsById(signedJWT.getJWTClaimsSet().getJWTID()))
-            throw new AppException(ErrorCode.UNAUTHENTICATED);
+        // refresh/logout it gap nhung cap ra token moi: kiem tra ca DB, khong chi set trong bo nho
+        String jti = signedJWT.getJWTClaimsSet().getJWTID();
+        boolean revoked = isRefresh
+                ? tokenRevocationService.isRevokedStrict(jti)
+                : tokenRevocationService.isRevoked(jti);
+        if (revoked) throw new AppException(ErrorCode.UNAUTHENTICATED);
 
         return signedJWT;
     }
+
+    // token da logout van phai nam trong danh sach thu hoi cho den khi het han refresh
+    private Date getRefreshableExpiryTime(SignedJWT signedJWT) throws ParseException {
+        return new Date(signedJWT
+                .getJWTClaimsSet()
+                .getIssueTime()
+                .toInstant()
+                .plus(REFRESHABLE_DURATION, ChronoUnit.SECONDS)
+                .toEpochMilli());
+    }
 }
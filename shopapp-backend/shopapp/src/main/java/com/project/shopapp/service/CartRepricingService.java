@@ -0,0 +1,82 @@
+package com.project.shopapp.service;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.project.shopapp.constant.CartPricingMode;
+import com.project.shopapp.repository.CartRepository;
+import com.project.shopapp.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+// Cap nhat gia trong gio hang khi gia san pham doi, bang UPDATE tren tap hop thay vi nap tung Cart
+@Service
+@Slf4j
+public class CartRepricingService {
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final ThreadPoolTaskExecutor cartRepricingExecutor;
+    private final long asyncThreshold;
+    private final int chunkSize;
+    private final CartPricingMode pricingMode;
+
+    public CartRepricingService(
+            CartRepository cartRepository,
+            ProductRepository productRepository,
+            @Qualifier("cartRepricingExecutor") ThreadPoolTaskExecutor cartRepricingExecutor,
+            @Value("${cart.repricing.async-threshold:10000}") long asyncThreshold,
+            @Value("${cart.repricing.chunk-size:1000}") int chunkSize,
+            @Value("${cart.pricing-mode:STORED}") CartPricingMode pricingMode) {
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.cartRepricingExecutor = cartRepricingExecutor;
+        this.asyncThreshold = asyncThreshold;
+        this.chunkSize = chunkSize;
+        this.pricingMode = pricingMode;
+    }
+
+    // it gio hang: 1 cau UPDATE ngay; qua nguong: chay nen theo lo de khong khoa ca nghin dong trong 1 transaction
+    public void reprice(Long productId, Float price) {
+        // gio hang khong luu gia -> khong co gi de cap nhat
+        if (pricingMode == CartPricingMode.LAZY) return;
+
+        long carts = cartRepository.countByProductId(productId);
+
+        if (carts == 0) return;
+
+        if (carts <= asyncThreshold) {
+            cartRepository.repriceByProductId(productId, price);
+            return;
+        }
+
+        log.info("Repricing {} carts of product {} in background", carts, productId);
+        cartRepricingExecutor.execute(() -> repriceInChunks(productId, price));
+    }
+
+    void repriceInChunks(Long productId, Float price) {
+        long start = System.currentTimeMillis();
+        long updated = 0;
+        Long afterId = 0L;
+
+        while (true) {
+            // gia lai doi trong luc dang chay -> de tac vu cua lan doi sau lam tiep, khong ghi de gia moi
+            if (!Objects.equals(productRepository.findPriceById(productId).orElse(null), price)) {
+                log.info("Price of product {} changed again, stop repricing after {} carts", productId, updated);
+                return;
+            }
+
+            List<Long> ids = cartRepository.findIdsByProductId(productId, afterId, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) break;
+
+            Long toId = ids.get(ids.size() - 1);
+            updated += cartRepository.repriceByProductIdAndIdRange(productId, price, afterId, toId);
+            afterId = toId;
+        }
+
+        log.info("Repriced {} carts of product {} in {} ms", updated, productId, System.currentTimeMillis() - start);
+    }
+}
@@ -2,6 +2,8 @@ package com.project.shopapp.service;
 
 import java.util.Optional;
 
+import com.project.shopapp.cache.PrincipalCache;
+import com.project.shopapp.constant.CartPricingMode;
 import com.project.shopapp.dto.request.CartCreationRequest;
 import com.project.shopapp.dto.request.CartUpdateRequest;
 import com.project.shopapp.dto.response.CartResponse;
@@ -17,6 +19,8 @@ import com.project.shopapp.repository.UserRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -32,14 +36,17 @@ public class CartService {
     CartRepository cartRepository;
     UserRepository userRepository;
     ProductRepository productRepository;
+    InventoryReservationService inventoryReservationService;
     CartMapper cartMapper;
+    PrincipalCache principalCache;
 
-    public CartResponse createCart(CartCreationRequest request) {
-        var phoneNumber = SecurityContextHolder.getContext().getAuthentication().getName();
+    @NonFinal
+    @Value("${cart.pricing-mode:STORED}")
+    CartPricingMode pricingMode;
 
-        User user = userRepository
-                .findByPhoneNumber(phoneNumber)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+    public CartResponse createCart(CartCreationRequest request) {
+        // chi can khoa ngoai: reference theo id, khong SELECT users
+        User user = userRepository.getReferenceById(principalCache.getCurrent().id());
 
         Product product = productRepository
                 .findById(request.getProductId())
@@ -51,38 +58,35 @@ public class CartService {
 
         if (cartOptional.isPresent()) {
             Cart cart = cartOptional.get();
-            if (request.getQuantity() + cart.getQuantity() > product.getQuantity())
+            if (request.getQuantity() + cart.getQuantity() > inventoryReservationService.available(product))
                 throw new AppException(ErrorCode.EXCEEDED_QUANTITY_AVAILABLE);
 
             cart.setQuantity(request.getQuantity() + cart.getQuantity());
-            cart.setTotalMoney(cart.getPrice() * cart.getQuantity());
+            applyPrice(cart, product);
 
-            return cartMapper.toCartResponse(cartRepository.save(cart));
+            return toCartResponse(cartRepository.save(cart));
         } else {
-            if (request.getQuantity() > product.getQuantity())
+            if (request.getQuantity() > inventoryReservationService.available(product))
                 throw new AppException(ErrorCode.EXCEEDED_QUANTITY_AVAILABLE);
 
             Cart cart = cartMapper.toCart(request);
 
             cart.setUser(user);
             cart.setProduct(product);
-            cart.setPrice(product.getPrice());
-            cart.setTotalMoney(product.getPrice() * request.getQuantity());
+            applyPrice(cart, product);
 
-            return cartMapper.toCartResponse(cartRepository.save(cart));
+            return toCartResponse(cartRepository.save(cart));
         }
     }
 
     public Page<CartResponse> getMyCart(int page, int limit) {
         var phoneNumber = SecurityContextHolder.getContext().getAuthentication().getName();
 
-        User user = userRepository
-                .findByPhoneNumber(phoneNumber)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
-
         Pageable pageable = PageRequest.of(page, limit, Sort.by("updatedAt").descending());
 
-        return cartRepository.findAllByUser(user, pageable).map(cartMapper::toCartResponse);
+        return pricingMode == CartPricingMode.LAZY
+                ? cartRepository.findPricedCartResponsesByPhoneNumber(phoneNumber, pageable)
+                : cartRepository.findCartResponsesByPhoneNumber(phoneNumber, pageable);
     }
 
     public CartResponse getCart(Long cartId) {
@@ -92,7 +96,7 @@ public class CartService {
                 SecurityContextHolder.getContext().getAuthentication().getName();
         if (!cart.getUser().getPhoneNumber().equals(phoneNumber)) throw new AppException(ErrorCode.UNAUTHORIZED);
 
-        return cartMapper.toCartResponse(cart);
+        return toCartResponse(cart);
     }
 
     @Transactional
@@ -110,37 +114,31 @@ public class CartService {
         if (cartOptional.isPresent()) {
             Cart cartOld = cartOptional.get();
             if (request.getQuantity() + cartOld.getQuantity()
-                    > cartOld.getProduct().getQuantity()) throw new AppException(ErrorCode.EXCEEDED_QUANTITY_AVAILABLE);
+                    > inventoryReservationService.available(cartOld.getProduct())) throw new AppException(ErrorCode.EXCEEDED_QUANTITY_AVAILABLE);
 
             cartOld.setQuantity(request.getQuantity() + cartOld.getQuantity());
-            cartOld.setTotalMoney(cartOld.getPrice() * cartOld.getQuantity());
+            applyPrice(cartOld, cartOld.getProduct());
 
             cartRepository.deleteById(cartId);
 
-            return cartMapper.toCartResponse(cartRepository.save(cartOld));
+            return toCartResponse(cartRepository.save(cartOld));
         } else {
             Product product = cart.getProduct();
 
-            if (request.getQuantity() > product.getQuantity())
+            if (request.getQuantity() > inventoryReservationService.available(product))
                 throw new AppException(ErrorCode.EXCEEDED_QUANTITY_AVAILABLE);
 
             cartMapper.updateCart(cart, request);
 
-            cart.setTotalMoney(cart.getQuantity() * cart.getPrice());
+            applyPrice(cart, product);
 
-            return cartMapper.toCartResponse(cartRepository.save(cart));
+            return toCartResponse(cartRepository.save(cart));
         }
     }
 
     @Transactional
     public void deleteMyCart() {
-        var phoneNumber = SecurityContextHolder.getContext().getAuthentication().getName();
-
-        User user = userRepository
-                .findByPhoneNumber(phoneNumber)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
-
-        cartRepository.deleteAllByUser(user);
+        cartRepository.deleteAllByUser(userRepository.getReferenceById(principalCache.getCurrent().id()));
     }
 
     public void deleteCart(Long cartId) {
@@ -155,6 +153,29 @@ public class CartService {
         cartRepository.deleteById(cartId);
     }
 
+    // STORED: chep gia san pham vao gio hang; LAZY: khong luu gia, chi tinh khi doc
+    private void applyPrice(Cart cart, Product product) {
+        if (pricingMode == CartPricingMode.LAZY) {
+            cart.setPrice(null);
+            cart.setTotalMoney(null);
+            return;
+        }
+
+        cart.setPrice(product.getPrice());
+        cart.setTotalMoney(product.getPrice() * cart.getQuantity());
+    }
+
+    private CartResponse toCartResponse(Cart cart) {
+        CartResponse response = cartMapper.toCartResponse(cart);
+
+        if (pricingMode == CartPricingMode.LAZY) {
+            response.setPrice(cart.getProduct().getPrice());
+            response.setTotalMoney(cart.getProduct().getPrice() * cart.getQuantity());
+        }
+
+        return response;
+    }
+
     //    public void updateCartPrice(Product product) {
     //        List<Cart> carts = cartRepository.findAllByProduct(product);
     //
@@ -2,6 +2,8 @@ package com.project.shopapp.service;
 
 import java.util.List;
 
+import com.project.shopapp.cache.ProductCache;
+import com.project.shopapp.cache.ReferenceDataCache;
 import com.project.shopapp.dto.request.CategoryRequest;
 import com.project.shopapp.dto.response.CategoryResponse;
 import com.project.shopapp.entity.Category;
@@ -9,6 +11,7 @@ import com.project.shopapp.exception.AppException;
 import com.project.shopapp.exception.ErrorCode;
 import com.project.shopapp.mapper.CategoryMapper;
 import com.project.shopapp.repository.CategoryRepository;
+import com.project.shopapp.search.ProductSearchIndex;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -21,6 +24,9 @@ import org.springframework.stereotype.Service;
 public class CategoryService {
     CategoryRepository categoryRepository;
     CategoryMapper categoryMapper;
+    ProductSearchIndex productSearchIndex;
+    ReferenceDataCache referenceDataCache;
+    ProductCache productCache;
 
     @PreAuthorize("hasRole('ADMIN')")
     public CategoryResponse createCategory(CategoryRequest request) {
@@ -29,23 +35,28 @@ public class CategoryService {
         Category category = categoryMapper.toCategory(request);
 
         category = categoryRepository.save(category);
+        referenceDataCache.refresh();
 
         return categoryMapper.toCategoryResponse(category);
     }
 
     public CategoryResponse getCategory(Long categoryId) {
 
-        return categoryMapper.toCategoryResponse(categoryRepository
-                .findById(categoryId)
+        return categoryMapper.toCategoryResponse(referenceDataCache
+                .getCategory(categoryId)
                 .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_EXISTED)));
     }
 
     public List<CategoryResponse> getCategories() {
-        return categoryRepository.findAll().stream()
+        return referenceDataCache.getCategories().stream()
                 .map(categoryMapper::toCategoryResponse)
                 .toList();
     }
 
+    public long getCategoriesLastModified() {
+        return referenceDataCache.getCategoriesLastModified();
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     public CategoryResponse updateCategory(Long categoryId, CategoryRequest request) {
         Category category = categoryRepository
@@ -56,12 +67,20 @@ public class CategoryService {
             throw new AppException(ErrorCode.CATEGORY_EXISTED);
 
         categoryMapper.updateCategory(category, request);
+        category = categoryRepository.save(category);
+
+        productSearchIndex.updateCategoryName(categoryId, category.getName());
+        referenceDataCache.refresh();
+        // ProductResponse co ten category
+        productCache.evictAll();
 
-        return categoryMapper.toCategoryResponse(categoryRepository.save(category));
+        return categoryMapper.toCategoryResponse(category);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     public void deleteCategory(Long categoryId) {
         categoryRepository.deleteById(categoryId);
+        referenceDataCache.refresh();
+        productCache.evictAll();
     }
 }
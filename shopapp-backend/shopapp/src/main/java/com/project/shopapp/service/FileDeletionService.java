@@ -0,0 +1,147 @@
+package com.project.shopapp.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import com.project.shopapp.entity.FileDeletion;
+import com.project.shopapp.repository.FileDeletionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+// Xoa file khong nam tren request: ten file duoc ghi vao bang file_deletions cung transaction voi lenh xoa dong
+// tro toi file (rollback thi khong xoa gi), worker nen xoa theo lo va thu lai khi loi.
+// Xoa file va xoa dong deu idempotent nen nhieu instance cung chay van dung
+@Service
+@Slf4j
+public class FileDeletionService {
+    static final int ERROR_LENGTH = 500;
+    static final long MAX_SHIFT = 20;
+
+    private final FileDeletionRepository fileDeletionRepository;
+    private final FileStorageService fileStorageService;
+    private final int batchSize;
+    private final Duration retryDelay;
+    private final Duration maxRetryDelay;
+    private final Duration orphanMinAge;
+    private final int orphanBatchSize;
+
+    public FileDeletionService(
+            FileDeletionRepository fileDeletionRepository,
+            FileStorageService fileStorageService,
+            @Value("${file-deletion.batch-size:100}") int batchSize,
+            @Value("${file-deletion.retry-delay:30}") long retryDelay,
+            @Value("${file-deletion.max-retry-delay:3600}") long maxRetryDelay,
+            @Value("${file-deletion.orphan-min-age:86400}") long orphanMinAge,
+            @Value("${file-deletion.orphan-batch-size:500}") int orphanBatchSize) {
+        this.fileDeletionRepository = fileDeletionRepository;
+        this.fileStorageService = fileStorageService;
+        this.batchSize = batchSize;
+        this.retryDelay = Duration.ofSeconds(retryDelay);
+        this.maxRetryDelay = Duration.ofSeconds(maxRetryDelay);
+        this.orphanMinAge = Duration.ofSeconds(orphanMinAge);
+        this.orphanBatchSize = orphanBatchSize;
+    }
+
+    // goi trong transaction xoa/doi dong tro toi file
+    public void enqueue(Collection<String> fileNames) {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<FileDeletion> deletions = fileNames.stream()
+                .filter(StringUtils::hasText)
+                .distinct()
+                .map(fileName -> FileDeletion.builder()
+                        .fileName(fileName)
+                        .attempts(0)
+                        .nextAttemptAt(now)
+                        .createdAt(now)
+                        .build())
+                .toList();
+
+        fileDeletionRepository.saveAll(deletions);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${file-deletion.interval:5000}",
+            initialDelayString = "${file-deletion.interval:5000}")
+    public void processDeletions() {
+        List<FileDeletion> deletions;
+        do {
+            deletions = fileDeletionRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+            List<Long> done = new ArrayList<>();
+
+            for (FileDeletion deletion : deletions) {
+                String error;
+                try {
+                    if (fileStorageService.deleteFile(deletion.getFileName())) {
+                        done.add(deletion.getId());
+                        continue;
+                    }
+                    error = "Recently stored";
+                } catch (Exception e) {
+                    error = e.toString();
+                    log.warn("Cannot delete file {} (attempt {}): {}",
+                            deletion.getFileName(), deletion.getAttempts() + 1, error);
+                }
+
+                fileDeletionRepository.reschedule(
+                        deletion.getId(),
+                        LocalDateTime.now().plus(backoff(deletion.getAttempts())),
+                        error.length() > ERROR_LENGTH ? error.substring(0, ERROR_LENGTH) : error);
+            }
+
+            if (!done.isEmpty()) fileDeletionRepository.deleteAllByIdInBatch(done);
+
+            // dong da xu ly deu bi xoa hoac doi sang lan sau -> lo day thi co the con dong den han
+        } while (deletions.size() == batchSize);
+    }
+
+    // Doi chieu upload.path voi product_images / products: file khong dong nao tro toi (xoa that bai truoc khi co
+    // outbox, upload bi ngat giua chung...) duoc dua vao hang doi. Chi xet file cu hon orphan-min-age de khong dung
+    // vao upload dang chay
+    @Scheduled(
+            fixedDelayString = "${file-deletion.orphan-scan-interval:3600000}",
+            initialDelayString = "${file-deletion.orphan-scan-interval:3600000}")
+    public void scanOrphans() {
+        Instant olderThan = Instant.now().minus(orphanMinAge);
+
+        int tempFiles = fileStorageService.deleteTempFiles(olderThan);
+
+        List<String> files = fileStorageService.listFiles(olderThan);
+        List<String> orphans = new ArrayList<>();
+
+        for (int from = 0; from < files.size(); from += orphanBatchSize) {
+            List<String> batch = files.subList(from, Math.min(from + orphanBatchSize, files.size()));
+            Set<String> referenced = fileStorageService.findReferenced(batch);
+
+            List<String> unreferenced = batch.stream()
+                    .filter(fileName -> !referenced.contains(fileName))
+                    .toList();
+            if (unreferenced.isEmpty()) continue;
+
+            // file xoa loi van nam trong hang doi cho lan thu sau: moi lan quet (tren moi instance) khong them dong
+            Set<String> queued = fileDeletionRepository.findQueuedFileNames(unreferenced);
+            unreferenced.stream().filter(fileName -> !queued.contains(fileName)).forEach(orphans::add);
+        }
+
+        enqueue(orphans);
+
+        log.info("Orphan scan: {} files, {} new orphans enqueued, {} temp files deleted",
+                files.size(), orphans.size(), tempFiles);
+    }
+
+    // retry-delay * 2^attempts, toi da max-retry-delay
+    Duration backoff(int attempts) {
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts, MAX_SHIFT));
+
+        return delay.compareTo(maxRetryDelay) > 0 ? maxRetryDelay : delay;
+    }
+}
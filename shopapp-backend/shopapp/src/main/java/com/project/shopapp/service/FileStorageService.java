@@ -1,23 +1,77 @@
 package com.project.shopapp.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+import com.project.shopapp.cache.ImageCache;
+import com.project.shopapp.constant.StorageMode;
 import com.project.shopapp.exception.AppException;
 import com.project.shopapp.exception.ErrorCode;
+import com.project.shopapp.repository.ProductImageRepository;
+import com.project.shopapp.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
+@Slf4j
 public class FileStorageService {
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int LOCK_STRIPES = 64;
 
-    @Value("${upload.path}")
-    private String uploadPath;
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+    private final ImageCache imageCache;
+    private final String uploadPath;
+    private final StorageMode storageMode;
+    private final Duration deleteGracePeriod;
+
+    // storeFile (gap file da co) va deleteFile cung 1 ten khong duoc xen nhau
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    public FileStorageService(
+            ProductImageRepository productImageRepository,
+            ProductRepository productRepository,
+            ImageCache imageCache,
+            @Value("${upload.path}") String uploadPath,
+            @Value("${upload.storage-mode:UUID}") StorageMode storageMode,
+            @Value("${upload.delete-grace-period:600}") long deleteGracePeriod) {
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.imageCache = imageCache;
+        this.uploadPath = uploadPath;
+        this.storageMode = storageMode;
+        this.deleteGracePeriod = Duration.ofSeconds(deleteGracePeriod);
+
+        for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new ReentrantLock();
+    }
 
     public String storeFile(MultipartFile file) {
         if (file.isEmpty() || !file.getContentType().startsWith("image/"))
@@ -25,27 +79,199 @@ public class FileStorageService {
 
         if (file.getSize() > 10 * 1024 * 1024) throw new AppException(ErrorCode.INVALID_FILE_SIZE);
 
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename());
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    // file sinh ra tu server (vd. anh thu nho), khong qua kiem tra cua upload
+    public String storeVariant(byte[] content, String name) {
         try {
-            Path uploadDir = Paths.get(uploadPath);
-            if (!Files.exists(uploadDir)) Files.createDirectories(uploadDir);
+            return store(new ByteArrayInputStream(content), name);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
 
-            String fileName = UUID.randomUUID() + "_" + file.getOriginalFilename();
-            Path filePath = Paths.get(uploadPath, fileName);
+    // Goi sau khi da xoa/doi dong tro toi file: con ProductImage hoac thumbnail nao dung thi giu lai.
+    // false: file vua duoc upload khac dung lai (chua commit), can thu lai sau delete-grace-period
+    public boolean deleteFile(String fileName) {
+        Path filePath = Paths.get(uploadPath, fileName);
 
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        Lock lock = lockFor(fileName);
+        lock.lock();
+        try {
+            if (isReferenced(fileName)) return true;
 
-            return fileName;
+            if (isContentAddressed(fileName) && isRecent(filePath)) return false;
+
+            Files.deleteIfExists(filePath);
+            imageCache.invalidate(fileName);
+
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ten (tuong doi, dang storeFile tra ve) cac file sua lan cuoi truoc olderThan, bo qua thu muc tmp
+    public List<String> listFiles(Instant olderThan) {
+        Path root = Paths.get(uploadPath);
+        if (!Files.isDirectory(root)) return List.of();
+
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(file -> !file.startsWith(root.resolve("tmp")))
+                    .filter(file -> isOlder(file, olderThan))
+                    .map(file -> root.relativize(file).toString().replace(File.separatorChar, '/'))
+                    .toList();
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage());
         }
     }
 
-    public void deleteFile(String fileName) {
+    // trong cac ten file, ten nao con anh/thumbnail tro toi
+    public Set<String> findReferenced(Collection<String> fileNames) {
+        Set<String> referenced = new HashSet<>(productImageRepository.findUsedUrls(fileNames));
+        referenced.addAll(productRepository.findUsedThumbnails(fileNames));
+
+        return referenced;
+    }
+
+    // file tam cua lan ghi bi ngat giua chung (vd. restart)
+    public int deleteTempFiles(Instant olderThan) {
+        Path tempDir = Paths.get(uploadPath, "tmp");
+        if (!Files.isDirectory(tempDir)) return 0;
+
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path file : files.filter(file -> isOlder(file, olderThan)).toList())
+                if (Files.deleteIfExists(file)) deleted++;
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+
+        return deleted;
+    }
+
+    // File da luu theo ten tra ve tu storeFile; ten ngoai upload.path hoac file tam coi nhu khong ton tai
+    public Path getFile(String fileName) {
+        Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        Path filePath = root.resolve(fileName).normalize();
+
+        if (!filePath.startsWith(root) || filePath.startsWith(root.resolve("tmp")) || !Files.isRegularFile(filePath))
+            throw new AppException(ErrorCode.IMAGE_NOT_EXISTED);
+
+        return filePath;
+    }
+
+    private String store(InputStream in, String name) throws IOException {
+        Path uploadDir = Paths.get(uploadPath);
+        if (!Files.exists(uploadDir)) Files.createDirectories(uploadDir);
+
+        if (storageMode == StorageMode.CONTENT_ADDRESSED) return storeContentAddressed(in, name);
+
+        String fileName = UUID.randomUUID() + "_" + name;
         Path filePath = Paths.get(uploadPath, fileName);
+
+        Files.copy(in, filePath, StandardCopyOption.REPLACE_EXISTING);
+
+        return fileName;
+    }
+
+    // Ghi stream qua FileChannel vao file tam, vua ghi vua bam SHA-256, roi doi ten sang ab/cd/<sha256>.
+    // Noi dung da co thi bo file tam va dung lai file cu
+    private String storeContentAddressed(InputStream input, String name) throws IOException {
+        // file tam cung o dia voi thu muc dich de ATOMIC_MOVE chi la 1 lan rename
+        Path tempDir = Paths.get(uploadPath, "tmp");
+        Files.createDirectories(tempDir);
+        Path tempFile = Files.createTempFile(tempDir, "upload-", ".part");
+
         try {
-            Files.deleteIfExists(filePath);
+            MessageDigest digest = sha256();
+
+            try (ReadableByteChannel in = Channels.newChannel(input);
+                    FileChannel out = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer.array(), 0, buffer.limit());
+                    while (buffer.hasRemaining()) out.write(buffer);
+                    buffer.clear();
+                }
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String fileName = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+            Path filePath = Paths.get(uploadPath, fileName);
+
+            Lock lock = lockFor(fileName);
+            lock.lock();
+            try {
+                if (Files.exists(filePath)) {
+                    // danh dau vua dung de deleteFile dong thoi khong xoa mat
+                    Files.setLastModifiedTime(filePath, FileTime.from(Instant.now()));
+                    log.info("Deduplicated upload {} -> {}", name, fileName);
+                } else {
+                    Files.createDirectories(filePath.getParent());
+                    try {
+                        Files.move(tempFile, filePath, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // instance khac vua ghi cung noi dung
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            return fileName;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private boolean isReferenced(String fileName) {
+        try {
+            return productImageRepository.existsByUrl(fileName)
+                    || productRepository.existsByThumbnailOrListThumbnail(fileName, fileName);
+        } catch (Exception e) {
+            // khong kiem tra duoc (vd. transaction dang rollback) thi giu file, khong xoa nham
+            log.warn("Cannot check references of {}: {}", fileName, e.toString());
+            return true;
+        }
+    }
+
+    private static boolean isOlder(Path file, Instant time) {
+        try {
+            return Files.isRegularFile(file) && Files.getLastModifiedTime(file).toInstant().isBefore(time);
         } catch (IOException e) {
-            throw new RuntimeException(e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isRecent(Path filePath) throws IOException {
+        if (!Files.exists(filePath)) return false;
+
+        return Files.getLastModifiedTime(filePath).toInstant().isAfter(Instant.now().minus(deleteGracePeriod));
+    }
+
+    static boolean isContentAddressed(String fileName) {
+        return fileName.indexOf('/') == 2 && fileName.lastIndexOf('/') == 5;
+    }
+
+    private Lock lockFor(String fileName) {
+        return locks[Math.floorMod(fileName.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
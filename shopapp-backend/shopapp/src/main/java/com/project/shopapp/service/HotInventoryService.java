@@ -0,0 +1,247 @@
+package com.project.shopapp.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.project.shopapp.cache.ProductCache;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.exception.AppException;
+import com.project.shopapp.exception.ErrorCode;
+import com.project.shopapp.inventory.StripedStockCounter;
+import com.project.shopapp.repository.OrderDetailRepository;
+import com.project.shopapp.repository.OrderDetailRepository.PendingStock;
+import com.project.shopapp.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Che do "hot SKU" cho flash sale: ton kho cua cac san pham cau hinh san giu tren bo dem trong bo nho,
+// checkout chi tru bo dem (khong khoa dong products), order_details danh dau is_stock_flushed = false
+// va duoc ghi xuong products.quantity theo lo dinh ky.
+// Bo dem nam trong 1 instance: chi bat khi moi request cua cac san pham nay di vao cung 1 instance
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class HotInventoryService {
+    ProductRepository productRepository;
+    OrderDetailRepository orderDetailRepository;
+    ProductCache productCache;
+    TransactionTemplate transactionTemplate;
+
+    boolean enabled;
+    Set<Long> productIds;
+    int stripes;
+    int flushBatchSize;
+
+    Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    // da tru tren bo dem nhung transaction chua ket thuc (chua co order_details)
+    Map<Long, LongAdder> inFlight = new ConcurrentHashMap<>();
+    // productId -> chenh lech giua bo dem va DB o lan kiem tra gan nhat
+    Map<Long, Long> drifts = new ConcurrentHashMap<>();
+
+    public HotInventoryService(
+            ProductRepository productRepository,
+            OrderDetailRepository orderDetailRepository,
+            ProductCache productCache,
+            TransactionTemplate transactionTemplate,
+            @Value("${inventory.hot-sku.enabled:false}") boolean enabled,
+            @Value("${inventory.hot-sku.product-ids:}") Set<Long> productIds,
+            @Value("${inventory.hot-sku.stripes:0}") int stripes,
+            @Value("${inventory.hot-sku.flush-batch-size:5000}") int flushBatchSize,
+            MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.orderDetailRepository = orderDetailRepository;
+        this.productCache = productCache;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.productIds = Set.copyOf(productIds);
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.flushBatchSize = flushBatchSize;
+
+        Gauge.builder("inventory.hot.drift", drifts, values -> values.values().stream()
+                        .mapToLong(Math::abs)
+                        .sum())
+                .description("Tong chenh lech giua bo dem hot SKU va DB")
+                .register(meterRegistry);
+    }
+
+    // Khoi phuc sau crash: ghi het order_details chua flush xuong products roi moi nap bo dem.
+    // Van replay khi da tat che do hot: cac dong con lai tu lan chay truoc chua duoc tru khoi products
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        try {
+            int flushed = 0;
+            // moi lo 1 transaction rieng
+            for (int batch = flushInTransaction(); batch > 0; batch = flushInTransaction()) flushed += batch;
+
+            if (!enabled) {
+                if (flushed > 0) log.info("Hot inventory disabled, replayed {} pending order details", flushed);
+                return;
+            }
+
+            counters.clear();
+            productRepository.findAllById(productIds).forEach(product -> counters.put(
+                    product.getId(), new StripedStockCounter(stripes, product.getQuantity())));
+
+            log.info("Hot inventory loaded {} products, replayed {} pending order details", counters.size(), flushed);
+        } catch (Exception e) {
+            // khong nap duoc thi cac san pham nay quay ve UPDATE co dieu kien tren DB
+            counters.clear();
+            log.error("Cannot load hot inventory", e);
+        }
+    }
+
+    public boolean isHot(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    public long available(Product product) {
+        StripedStockCounter counter = counters.get(product.getId());
+        return counter != null ? counter.available() : product.getQuantity();
+    }
+
+    // Caller phai ghi order_details voi is_stock_flushed = false trong cung transaction:
+    // do la ban ghi ben vung duy nhat cua lan tru nay
+    public void reserve(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+
+        Map<Long, Integer> reserved = new TreeMap<>();
+
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (!counters.get(entry.getKey()).tryReserve(entry.getValue())) {
+                reserved.forEach(this::giveBack);
+                throw new AppException(ErrorCode.EXCEEDED_QUANTITY_AVAILABLE);
+            }
+            reserved.put(entry.getKey(), entry.getValue());
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+
+        reserved.forEach((productId, quantity) ->
+                inFlight.computeIfAbsent(productId, key -> new LongAdder()).add(quantity));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                reserved.forEach((productId, quantity) -> inFlight.get(productId).add(-quantity));
+
+                if (status != STATUS_COMMITTED) reserved.forEach(HotInventoryService.this::giveBack);
+            }
+        });
+    }
+
+    // huy don: DB da duoc cong boi caller, o day chi cong lai bo dem sau khi commit
+    public void release(Map<Long, Integer> quantities) {
+        Runnable action = () -> quantities.forEach(this::giveBack);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // admin dat lai so luong: doi bo dem va cong/tru phan chenh lech tren DB, khong ghi de products.quantity
+    // vi DB con dang thieu cac don chua flush
+    @Transactional
+    public void setQuantity(Long productId, int quantity) {
+        StripedStockCounter counter = counters.get(productId);
+
+        long delta = quantity - counter.available();
+        long applied = delta >= 0 ? delta : -counter.drain(-delta);
+        if (delta >= 0) counter.add(delta);
+
+        if (applied != 0) productRepository.adjustQuantities(Map.of(productId, (int) applied));
+    }
+
+    @Scheduled(
+            fixedDelayString = "${inventory.hot-sku.flush-interval:1000}",
+            initialDelayString = "${inventory.hot-sku.flush-interval:1000}")
+    @Transactional
+    public void flush() {
+        // khong phu thuoc enabled: flag chi quyet dinh don moi co tru tren bo dem hay khong
+        flushPending();
+    }
+
+    private int flushInTransaction() {
+        return transactionTemplate.execute(status -> flushPending());
+    }
+
+    // 1 lo: tong hop order_details chua flush theo san pham -> 1 UPDATE products + 1 UPDATE order_details.
+    // Phai chay trong transaction: findPendingStock khoa cac dong den luc commit, luong/instance khac
+    // flush cung luc khong doc lai cac dong nay nen khong tru 2 lan
+    private int flushPending() {
+        List<PendingStock> pending = orderDetailRepository.findPendingStock(PageRequest.of(0, flushBatchSize));
+        if (pending.isEmpty()) return 0;
+
+        Map<Long, Integer> deltas = new TreeMap<>();
+        List<Long> ids = new ArrayList<>(pending.size());
+
+        for (PendingStock stock : pending) {
+            deltas.merge(stock.getProductId(), -stock.getQuantity(), Integer::sum);
+            ids.add(stock.getId());
+        }
+
+        productRepository.adjustQuantities(deltas);
+        orderDetailRepository.markStockFlushed(ids);
+        productCache.evictProducts(deltas.keySet());
+
+        return pending.size();
+    }
+
+    // Bo dem + phan dang giu phai bang products.quantity - order_details chua flush.
+    // Do 2 lan, chi bao khi lech giong nhau ca 2 lan de bo qua don vua commit giua 2 lan doc
+    // (khong mo transaction: moi lan doc phai thay du lieu moi nhat)
+    @Scheduled(
+            fixedDelayString = "${inventory.hot-sku.check-interval:60000}",
+            initialDelayString = "${inventory.hot-sku.check-interval:60000}")
+    public Map<Long, Long> checkConsistency() {
+        Map<Long, Long> result = new TreeMap<>();
+
+        for (Long productId : counters.keySet()) {
+            long first = drift(productId);
+            long drift = first != 0 && drift(productId) == first ? first : 0;
+
+            drifts.put(productId, drift);
+            if (drift == 0) continue;
+
+            result.put(productId, drift);
+            log.warn("Hot inventory drift for product {}: counter is off by {}", productId, drift);
+        }
+
+        return result;
+    }
+
+    private long drift(Long productId) {
+        Long expected = orderDetailRepository.calculateStock(productId);
+        if (expected == null) return 0;
+
+        LongAdder held = inFlight.get(productId);
+        long actual = counters.get(productId).available() + (held != null ? held.sum() : 0);
+
+        return actual - expected;
+    }
+
+    private void giveBack(Long productId, Integer quantity) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter != null) counter.add(quantity);
+    }
+}
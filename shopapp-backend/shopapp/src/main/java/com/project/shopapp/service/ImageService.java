@@ -0,0 +1,142 @@
+package com.project.shopapp.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import com.project.shopapp.cache.ImageCache;
+import com.project.shopapp.cache.ImageCache.CachedImage;
+import com.project.shopapp.exception.AppException;
+import com.project.shopapp.exception.ErrorCode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+// Doc anh da upload de tra ve client: file nho lay tu ImageCache,
+// file lon de Tomcat gui thang tu file xuong socket (sendfile), khong duoc thi FileChannel.transferTo
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ImageService {
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    FileStorageService fileStorageService;
+    ImageCache imageCache;
+
+    // ten khong hop le/khong ton tai -> IMAGE_NOT_EXISTED (khong cache)
+    public CachedImage getImage(String fileName) {
+        CachedImage image = imageCache.get(fileName, this::load);
+
+        // entry chi co metadata: file co the da bi instance khac xoa, ImageCache o day khong biet
+        if (image.content() == null && !Files.isRegularFile(image.path())) {
+            imageCache.invalidate(fileName);
+            throw new AppException(ErrorCode.IMAGE_NOT_EXISTED);
+        }
+
+        return image;
+    }
+
+    // ghi byte [start, end] cua anh vao response
+    public void write(
+            CachedImage image, long start, long end, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+
+        if (image.content() != null) {
+            response.getOutputStream().write(image.content(), (int) start, (int) count);
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, image.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(image.path())) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+
+            long position = start;
+            while (position <= end) position += channel.transferTo(position, end + 1 - position, out);
+        } catch (NoSuchFileException e) {
+            // file bi xoa giua getImage va luc mo: bo header da dat (Cache-Control immutable) roi tra 404
+            response.reset();
+            throw new AppException(ErrorCode.IMAGE_NOT_EXISTED);
+        }
+    }
+
+    private CachedImage load(String fileName) {
+        Path filePath = fileStorageService.getFile(fileName);
+
+        try {
+            long length = Files.size(filePath);
+            byte[] content = imageCache.isCacheable(length) ? Files.readAllBytes(filePath) : null;
+
+            return new CachedImage(filePath, length, contentType(fileName, filePath, content), eTag(fileName), content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ten content-addressed da la hash noi dung; ten UUID_ten goc khong bao gio bi ghi de nen hash ten la du
+    private static String eTag(String fileName) {
+        String tag = FileStorageService.isContentAddressed(fileName)
+                ? fileName.substring(fileName.lastIndexOf('/') + 1)
+                : DigestUtils.md5DigestAsHex(fileName.getBytes(StandardCharsets.UTF_8));
+
+        return "\"" + tag + "\"";
+    }
+
+    // ten content-addressed khong co duoi file -> doan theo vai byte dau
+    private static String contentType(String fileName, Path filePath, byte[] content) throws IOException {
+        MediaType mediaType = MediaTypeFactory.getMediaType(fileName).orElse(null);
+        if (mediaType != null) return mediaType.toString();
+
+        byte[] header = new byte[12];
+        int read;
+        if (content != null) {
+            read = Math.min(content.length, header.length);
+            System.arraycopy(content, 0, header, 0, read);
+        } else {
+            try (InputStream in = Files.newInputStream(filePath)) {
+                read = in.readNBytes(header, 0, header.length);
+            }
+        }
+
+        return sniff(header, read);
+    }
+
+    private static String sniff(byte[] header, int read) {
+        if (read >= 4 && header[0] == (byte) 0x89 && matches(header, 1, "PNG")) return MediaType.IMAGE_PNG_VALUE;
+        if (read >= 3 && header[0] == (byte) 0xFF && header[1] == (byte) 0xD8 && header[2] == (byte) 0xFF)
+            return MediaType.IMAGE_JPEG_VALUE;
+        if (read >= 4 && matches(header, 0, "GIF8")) return MediaType.IMAGE_GIF_VALUE;
+        if (read >= 12 && matches(header, 0, "RIFF") && matches(header, 8, "WEBP")) return "image/webp";
+
+        return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    private static boolean matches(byte[] header, int offset, String magic) {
+        for (int i = 0; i < magic.length(); i++) if (header[offset + i] != magic.charAt(i)) return false;
+
+        return true;
+    }
+}
@@ -0,0 +1,356 @@
+package com.project.shopapp.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import com.project.shopapp.cache.ProductCache;
+import com.project.shopapp.constant.ImageVariant;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.entity.ProductImage;
+import com.project.shopapp.repository.ProductImageRepository;
+import com.project.shopapp.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+// Tao ban thu nho (ImageVariant) cho anh san pham o thread nen: request upload chi luu anh goc.
+// Task mat khi restart hoac bi tu choi khi hang doi day se duoc lan quet dinh ky tao bu
+@Service
+@Slf4j
+public class ImageVariantService {
+    static final float JPEG_QUALITY = 0.85f;
+
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+    private final FileStorageService fileStorageService;
+    private final ProductCache productCache;
+    private final ThreadPoolTaskExecutor imageVariantExecutor;
+    private final int backfillBatchSize;
+    private final long maxPixels;
+    private final int maxAttempts;
+
+    // task dang cho hoac dang chay, lan quet khong xep trung
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    // so lan loi tam thoi lien tiep (mat khi restart), xoa khi da ghi ket qua
+    private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+    public ImageVariantService(
+            ProductImageRepository productImageRepository,
+            ProductRepository productRepository,
+            FileStorageService fileStorageService,
+            ProductCache productCache,
+            @Qualifier("imageVariantExecutor") ThreadPoolTaskExecutor imageVariantExecutor,
+            @Value("${image.variants.backfill-batch-size:100}") int backfillBatchSize,
+            @Value("${image.variants.max-pixels:25000000}") long maxPixels,
+            @Value("${image.variants.max-attempts:5}") int maxAttempts) {
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.fileStorageService = fileStorageService;
+        this.productCache = productCache;
+        this.imageVariantExecutor = imageVariantExecutor;
+        this.backfillBatchSize = backfillBatchSize;
+        this.maxPixels = maxPixels;
+        this.maxAttempts = maxAttempts;
+    }
+
+    // goi sau khi luu ProductImage: transaction commit xong worker moi doc duoc dong moi
+    public void generate(ProductImage productImage) {
+        Long imageId = productImage.getId();
+        afterCommit(() -> submit("image-" + imageId, () -> generateImageVariants(imageId)));
+    }
+
+    // thumbnail cua san pham: chi can ban cho trang danh sach
+    public void generate(Product product) {
+        Long productId = product.getId();
+        afterCommit(() -> submit("product-" + productId, () -> generateListThumbnail(productId)));
+    }
+
+    @Scheduled(
+            fixedDelayString = "${image.variants.backfill-interval:60000}",
+            initialDelayString = "${image.variants.backfill-interval:60000}")
+    public void backfill() {
+        PageRequest batch = PageRequest.of(0, backfillBatchSize);
+
+        for (Long imageId : productImageRepository.findIdsWithoutVariants(batch))
+            submit("image-" + imageId, () -> generateImageVariants(imageId));
+
+        for (Long productId : productRepository.findIdsWithoutListThumbnail(batch))
+            submit("product-" + productId, () -> generateListThumbnail(productId));
+    }
+
+    // moi file ma 1 ProductImage dang dung (anh goc + ban thu nho), de xoa kem khi xoa anh
+    public static List<String> getFileNames(ProductImage productImage) {
+        return Stream.of(
+                        productImage.getImageUrl(),
+                        productImage.getThumbnailUrl(),
+                        productImage.getDetailUrl(),
+                        productImage.getZoomUrl())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+
+    void generateImageVariants(Long imageId) {
+        ProductImage productImage = productImageRepository.findById(imageId).orElse(null);
+        if (productImage == null || productImage.getThumbnailUrl() != null) return;
+
+        String imageUrl = productImage.getImageUrl();
+        Map<ImageVariant, String> variants = createVariants("image-" + imageId, imageUrl, ImageVariant.values());
+        if (variants == null) return;
+
+        int updated = productImageRepository.updateVariants(
+                imageId,
+                imageUrl,
+                variants.get(ImageVariant.THUMBNAIL),
+                variants.get(ImageVariant.DETAIL),
+                variants.get(ImageVariant.ZOOM));
+
+        // anh bi xoa/doi trong luc tao
+        if (updated == 0) {
+            discard(imageUrl, variants.values());
+            return;
+        }
+
+        productCache.evictImages(productImage.getProduct().getId());
+    }
+
+    void generateListThumbnail(Long productId) {
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null || product.getListThumbnail() != null || !StringUtils.hasText(product.getThumbnail()))
+            return;
+
+        String thumbnail = product.getThumbnail();
+        Map<ImageVariant, String> variants =
+                createVariants("product-" + productId, thumbnail, ImageVariant.THUMBNAIL);
+        if (variants == null) return;
+
+        if (productRepository.updateListThumbnail(productId, thumbnail, variants.get(ImageVariant.THUMBNAIL)) == 0) {
+            discard(thumbnail, variants.values());
+            return;
+        }
+
+        productCache.evictProduct(productId);
+    }
+
+    // Anh goc da nho hon ban thu nho, khong doc duoc (vd. webp), hong hoac qua lon -> dung luon anh goc,
+    // khong tao lai nua. null: loi tam thoi (vd. I/O), de NULL cho lan quet sau thu lai
+    private Map<ImageVariant, String> createVariants(String key, String imageUrl, ImageVariant... variants) {
+        BufferedImage original;
+        try {
+            original = read(imageUrl);
+        } catch (IIOException e) {
+            // noi dung anh hong: doc lai van hong
+            log.warn("Cannot decode image {}: {}", imageUrl, e.toString());
+            return done(key, originals(imageUrl, variants));
+        } catch (Exception e) {
+            return retryLater(key, imageUrl, variants, e);
+        }
+
+        if (original == null) return done(key, originals(imageUrl, variants));
+
+        Map<ImageVariant, String> urls = originals(imageUrl, variants);
+
+        try {
+            // anh trong suot giu PNG, con lai JPEG
+            boolean alpha = original.getColorModel().hasAlpha();
+
+            for (ImageVariant variant : variants) {
+                if (Math.max(original.getWidth(), original.getHeight()) <= variant.getMaxSize()) continue;
+
+                BufferedImage resized = resize(original, variant.getMaxSize(), alpha);
+                String name = variant.name().toLowerCase() + (alpha ? ".png" : ".jpg");
+
+                urls.put(variant, fileStorageService.storeVariant(alpha ? png(resized) : jpeg(resized), name));
+            }
+        } catch (Exception e) {
+            discard(imageUrl, urls.values());
+            return retryLater(key, imageUrl, variants, e);
+        }
+
+        return done(key, urls);
+    }
+
+    // Doc kich thuoc tu header truoc khi giai nen: anh nho khai bao kich thuoc rat lon (decompression bomb)
+    // bi tu choi thay vi lam OutOfMemoryError. null: dinh dang khong ho tro hoac qua max-pixels
+    private BufferedImage read(String imageUrl) throws IOException {
+        try (ImageInputStream input =
+                ImageIO.createImageInputStream(fileStorageService.getFile(imageUrl).toFile())) {
+            Iterator<ImageReader> readers =
+                    input != null ? ImageIO.getImageReaders(input) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                log.warn("Unsupported image format {}", imageUrl);
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("Image {} is too large ({}x{}), variants are not created", imageUrl, width, height);
+                    return null;
+                }
+
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private Map<ImageVariant, String> retryLater(
+            String key, String imageUrl, ImageVariant[] variants, Exception e) {
+        int attempts = failedAttempts.merge(key, 1, Integer::sum);
+
+        if (attempts < maxAttempts) {
+            log.warn("Cannot create variants of {} (attempt {}): {}", imageUrl, attempts, e.toString());
+            return null;
+        }
+
+        // khong de dong nay chan lo backfill mai mai
+        log.error("Cannot create variants of {} after {} attempts, using the original", imageUrl, attempts, e);
+        return done(key, originals(imageUrl, variants));
+    }
+
+    private Map<ImageVariant, String> done(String key, Map<ImageVariant, String> urls) {
+        failedAttempts.remove(key);
+        return urls;
+    }
+
+    private static Map<ImageVariant, String> originals(String imageUrl, ImageVariant... variants) {
+        Map<ImageVariant, String> urls = new EnumMap<>(ImageVariant.class);
+        for (ImageVariant variant : variants) urls.put(variant, imageUrl);
+
+        return urls;
+    }
+
+    private void discard(String imageUrl, Collection<String> variants) {
+        variants.stream().filter(url -> !url.equals(imageUrl)).distinct().forEach(url -> {
+            try {
+                fileStorageService.deleteFile(url);
+            } catch (Exception e) {
+                log.info("Cannot delete images: " + e.toString());
+            }
+        });
+    }
+
+    private void submit(String key, Runnable task) {
+        if (!pending.add(key)) return;
+
+        try {
+            imageVariantExecutor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Cannot create image variants for {}", key, e);
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            pending.remove(key);
+            log.warn("Image variant queue is full, {} is left to backfill", key);
+        }
+    }
+
+    // Thu nho tung buoc 1/2 roi moi ve kich thuoc dich: 1 lan bilinear tu anh rat lon bi rang cua
+    static BufferedImage resize(BufferedImage source, int maxSize, boolean alpha) {
+        double scale = (double) maxSize / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(
+                        RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+
+        return out.toByteArray();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.project.shopapp.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.project.shopapp.cache.ProductCache;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.exception.AppException;
+import com.project.shopapp.exception.ErrorCode;
+import com.project.shopapp.repository.ProductRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Giu/tra hang bang UPDATE co dieu kien tren DB thay cho doc - kiem tra - ghi trong Java,
+// rieng san pham hot (HotInventoryService) tru tren bo dem trong bo nho
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class InventoryReservationService {
+    ProductRepository productRepository;
+    ProductCache productCache;
+    HotInventoryService hotInventoryService;
+
+    // productId -> so luong; du hay thieu quyet dinh boi so dong bi anh huong, khong doc truoc.
+    // Tra ve cac san pham hot chi moi tru tren bo dem: order_details cua chung phai ghi is_stock_flushed = false
+    @Transactional
+    public Set<Long> reserve(Map<Long, Integer> quantities) {
+        // khoa cac dong theo thu tu id tang dan de 2 don hang cheo nhau khong deadlock
+        Map<Long, Integer> ordered = new TreeMap<>();
+        Map<Long, Integer> hot = new TreeMap<>();
+
+        quantities.forEach((productId, quantity) ->
+                (hotInventoryService.isHot(productId) ? hot : ordered).put(productId, quantity));
+
+        // bo dem truoc: neu UPDATE ben duoi that bai, rollback se tra lai bo dem
+        hotInventoryService.reserve(hot);
+
+        if (!ordered.isEmpty()) {
+            long reserved = productRepository.reserveQuantities(ordered);
+
+            // thieu 1 san pham la huy ca don: exception lam rollback ca cac dong da tru
+            if (reserved != ordered.size()) throw new AppException(ErrorCode.EXCEEDED_QUANTITY_AVAILABLE);
+
+            productCache.evictProducts(ordered.keySet());
+        }
+
+        return hot.keySet();
+    }
+
+    // DB luon duoc cong lai ngay (ke ca san pham hot: order_details chua flush van se bi tru khi flush)
+    @Transactional
+    public void release(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+
+        productRepository.adjustQuantities(ordered);
+        hotInventoryService.release(ordered);
+
+        productCache.evictProducts(ordered.keySet());
+    }
+
+    public long available(Product product) {
+        return hotInventoryService.available(product);
+    }
+
+    public boolean isHot(Long productId) {
+        return hotInventoryService.isHot(productId);
+    }
+
+    // admin sua so luong san pham hot
+    public void setHotQuantity(Long productId, int quantity) {
+        hotInventoryService.setQuantity(productId, quantity);
+    }
+}
@@ -70,7 +70,7 @@ public class OrderDetailService {
 
         Pageable pageable = PageRequest.of(page, limit);
 
-        return orderDetailRepository.findAllByOrderId(orderId, pageable).map(orderDetailMapper::toOrderDetailResponse);
+        return orderDetailRepository.findResponsesByOrderId(orderId, pageable);
     }
 
     public OrderDetailResponse getOrderDetail(Long id) {
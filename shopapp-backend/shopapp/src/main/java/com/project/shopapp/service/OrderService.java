@@ -1,12 +1,23 @@
 package com.project.shopapp.service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.project.shopapp.cache.CountCache;
+import com.project.shopapp.cache.PrincipalCache;
+import com.project.shopapp.cache.PrincipalCache.Principal;
+import com.project.shopapp.constant.CountMode;
 import com.project.shopapp.constant.OrderStatus;
 import com.project.shopapp.dto.request.OrderCreationRequest;
 import com.project.shopapp.dto.request.OrderStatusUpdateRequest;
 import com.project.shopapp.dto.request.OrderUpdateRequest;
+import com.project.shopapp.dto.request.PageCursor;
+import com.project.shopapp.dto.response.CursorPageResponse;
 import com.project.shopapp.dto.response.OrderResponse;
 import com.project.shopapp.entity.*;
 import com.project.shopapp.exception.AppException;
@@ -19,8 +30,10 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -36,57 +49,66 @@ public class OrderService {
     UserRepository userRepository;
     OrderDetailRepository orderDetailRepository;
     CartRepository cartRepository;
-    ProductRepository productRepository;
+    InventoryReservationService inventoryReservationService;
     OrderDetailMapper orderDetailMapper;
     OrderMapper orderMapper;
+    CountCache countCache;
+    PrincipalCache principalCache;
 
     @Transactional
     public OrderResponse createOrder(OrderCreationRequest request) {
-        var phoneNumber = SecurityContextHolder.getContext().getAuthentication().getName();
-
-        User user = userRepository
-                .findByPhoneNumber(phoneNumber)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+        Principal principal = principalCache.getCurrent();
 
-        if (!user.getIsActive()) throw new AppException(ErrorCode.DEACTIVATED_USER);
+        if (!principal.active()) throw new AppException(ErrorCode.DEACTIVATED_USER);
 
-        List<Cart> carts = cartRepository.findAllByUserId(user.getId());
+        List<Cart> carts = cartRepository.findAllByUserId(principal.id());
         if (carts.isEmpty()) throw new AppException(ErrorCode.CART_EMPTY);
 
-        for (Cart cart : carts) {
-            Product product = cart.getProduct();
+        // cung san pham khac mau -> cong don so luong
+        Map<Long, Integer> quantities = new TreeMap<>();
 
-            if (!product.getIsActive()) throw new AppException(ErrorCode.INVALID_PRODUCT);
+        for (Cart cart : carts) {
+            if (!cart.getProduct().getIsActive()) throw new AppException(ErrorCode.INVALID_PRODUCT);
 
-            if (cart.getQuantity() > product.getQuantity())
-                throw new AppException(ErrorCode.EXCEEDED_QUANTITY_AVAILABLE);
+            quantities.merge(cart.getProduct().getId(), cart.getQuantity(), Integer::sum);
         }
 
+        // giu hang truoc tien: khoa X tren dong products lay ngay tu dau (khong nang cap tu khoa S cua FK
+        // order_details), het hang thi dung luon truoc khi ghi gi khac
+        Set<Long> hotProductIds = inventoryReservationService.reserve(quantities);
+
         Order order = orderMapper.toOrder(request);
 
-        order.setUser(user);
+        order.setUser(userRepository.getReferenceById(principal.id()));
         order.setStatus(OrderStatus.PENDING.name());
         order.setShippingDate(LocalDate.now().plusDays(3));
         order.setIsActive(true);
-        order.setTotalMoney(
-                (float) carts.stream().mapToDouble(Cart::getTotalMoney).sum());
+        // chot gia tai thoi diem dat hang tu products.price, khong dua vao gia luu trong gio hang
+        order.setTotalMoney((float) carts.stream()
+                .mapToDouble(cart -> cart.getProduct().getPrice() * cart.getQuantity())
+                .sum());
 
         order = orderRepository.save(order);
 
+        List<OrderDetail> orderDetails = new ArrayList<>(carts.size());
+
         for (Cart cart : carts) {
             OrderDetail orderDetail = orderDetailMapper.cartToOrderDetail(cart);
 
             orderDetail.setOrder(order);
             orderDetail.setNumberOfProducts(cart.getQuantity());
+            orderDetail.setPrice(cart.getProduct().getPrice());
+            orderDetail.setTotalMoney(cart.getProduct().getPrice() * cart.getQuantity());
+            // san pham hot: so luong tru xuong products sau, khi flush
+            orderDetail.setIsStockFlushed(!hotProductIds.contains(cart.getProduct().getId()));
 
-            orderDetailRepository.save(orderDetail);
-
-            Product product = cart.getProduct();
-            product.setQuantity(product.getQuantity() - cart.getQuantity());
-            productRepository.save(product);
+            orderDetails.add(orderDetail);
         }
 
-        cartRepository.deleteAll(carts);
+        // so cau lenh co dinh, khong phu thuoc so dong trong gio hang
+        orderDetailRepository.insertAll(orderDetails);
+        cartRepository.deleteAllByIdInBatch(
+                carts.stream().map(Cart::getId).toList());
 
         return orderMapper.toOrderResponse(order);
     }
@@ -98,6 +120,11 @@ public class OrderService {
         return orderRepository.findAll(pageable).map(orderMapper::toOrderResponse);
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    public CursorPageResponse<OrderResponse> getOrdersByCursor(String cursor, int size) {
+        return ordersByCursor(null, null, null, null, null, null, null, null, cursor, size);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     public Page<OrderResponse> searchOrders(String keyword, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
@@ -108,7 +135,7 @@ public class OrderService {
     }
 
     @PreAuthorize("hasRole('ADMIN')")
-    public Page<OrderResponse> findOrdersByQuerydsl(
+    public Slice<OrderResponse> findOrdersByQuerydsl(
             String keyword,
             Float totalMoneyFrom,
             Float totalMoneyTo,
@@ -117,25 +144,94 @@ public class OrderService {
             String status,
             Boolean isActive,
             Long userId,
+            CountMode countMode,
             Pageable pageable) {
-        return orderRepository
-                .findOrdersByQuerydsl(
-                        keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive, status, userId, pageable)
-                .map(orderMapper::toOrderResponse);
+        Slice<Order> orders =
+                switch (countMode) {
+                    case EXACT -> orderRepository.findOrdersByQuerydsl(
+                            keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive, status, userId,
+                            pageable);
+                    case NONE -> orderRepository.findOrdersSliceByQuerydsl(
+                            keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive, status, userId,
+                            pageable);
+                    case CACHED -> new PageImpl<>(
+                            orderRepository
+                                    .findOrdersSliceByQuerydsl(
+                                            keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive,
+                                            status, userId, pageable)
+                                    .getContent(),
+                            pageable,
+                            countCache.getCount(
+                                    Arrays.asList(
+                                            "orders", keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate,
+                                            isActive, status, userId),
+                                    () -> orderRepository.countOrdersByQuerydsl(
+                                            keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, isActive,
+                                            status, userId)));
+                };
+
+        return orders.map(orderMapper::toOrderResponse);
     }
 
-    public Page<OrderResponse> getMyOrders(int page, int limit) {
-        var phoneNumber = SecurityContextHolder.getContext().getAuthentication().getName();
+    @PreAuthorize("hasRole('ADMIN')")
+    public CursorPageResponse<OrderResponse> findOrdersByCursor(
+            String keyword,
+            Float totalMoneyFrom,
+            Float totalMoneyTo,
+            LocalDate startDate,
+            LocalDate endDate,
+            String status,
+            Boolean isActive,
+            Long userId,
+            String cursor,
+            int size) {
+        return ordersByCursor(
+                keyword, totalMoneyFrom, totalMoneyTo, startDate, endDate, status, isActive, userId, cursor, size);
+    }
 
-        User user = userRepository
-                .findByPhoneNumber(phoneNumber)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+    public Page<OrderResponse> getMyOrders(int page, int limit) {
+        User user = userRepository.getReferenceById(principalCache.getCurrent().id());
 
         Pageable pageable = PageRequest.of(page, limit, Sort.by("createdAt").descending());
 
         return orderRepository.findAllByUser(user, pageable).map(orderMapper::toOrderResponse);
     }
 
+    public CursorPageResponse<OrderResponse> getMyOrdersByCursor(String cursor, int limit) {
+        return ordersByCursor(
+                null, null, null, null, null, null, null, principalCache.getCurrent().id(), cursor, limit);
+    }
+
+    // phan trang theo (createdAt, id) thay cho offset, lay size + 1 ban ghi de biet con trang sau
+    private CursorPageResponse<OrderResponse> ordersByCursor(
+            String keyword,
+            Float totalMoneyFrom,
+            Float totalMoneyTo,
+            LocalDate startDate,
+            LocalDate endDate,
+            String status,
+            Boolean isActive,
+            Long userId,
+            String cursor,
+            int size) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+
+        List<Order> rows = orderRepository.findOrdersByCursor(
+                keyword,
+                totalMoneyFrom,
+                totalMoneyTo,
+                startDate,
+                endDate,
+                isActive,
+                status,
+                userId,
+                pageCursor != null ? pageCursor.createdAt() : null,
+                pageCursor != null ? pageCursor.id() : null,
+                size + 1);
+
+        return CursorPageResponse.of(rows, size, orderMapper::toOrderResponse, Order::getCreatedAt, Order::getId);
+    }
+
     public OrderResponse getOrder(Long orderId) {
         Order order =
                 orderRepository.findById(orderId).orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_EXISTED));
@@ -219,14 +315,14 @@ public class OrderService {
 
             if ((currentStatus == OrderStatus.PENDING || currentStatus == OrderStatus.PROCESSING)
                     && nextStatus == OrderStatus.CANCELLED) {
-                List<OrderDetail> orderDetails = orderDetailRepository.findAllByOrderId(orderId);
+                Map<Long, Integer> quantities = new TreeMap<>();
 
-                for (OrderDetail orderDetail : orderDetails) {
-                    Product product = orderDetail.getProduct();
+                for (OrderDetail orderDetail : orderDetailRepository.findAllByOrderId(orderId))
+                    quantities.merge(
+                            orderDetail.getProduct().getId(), orderDetail.getNumberOfProducts(), Integer::sum);
 
-                    product.setQuantity(product.getQuantity() + orderDetail.getNumberOfProducts());
-                    productRepository.save(product);
-                }
+                // cong truc tiep tren DB, khong ghi de so luong vua bi don khac tru
+                inventoryReservationService.release(quantities);
             }
 
             return orderMapper.toOrderResponse(order);
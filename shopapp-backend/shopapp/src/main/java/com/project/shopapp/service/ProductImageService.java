@@ -4,7 +4,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import com.project.shopapp.cache.ProductCache;
 import com.project.shopapp.dto.response.ProductImageResponse;
 import com.project.shopapp.entity.Product;
 import com.project.shopapp.entity.ProductImage;
@@ -14,25 +17,52 @@ import com.project.shopapp.mapper.ProductImageMapper;
 import com.project.shopapp.repository.ProductImageRepository;
 import com.project.shopapp.repository.ProductRepository;
 import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 @Service
-@RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 @Slf4j
 public class ProductImageService {
+    static final int MAX_IMAGES = 5;
+
     ProductImageRepository productImageRepository;
     ProductRepository productRepository;
     FileStorageService fileStorageService;
+    ImageVariantService imageVariantService;
     ProductImageMapper productImageMapper;
+    ProductCache productCache;
+    TransactionTemplate transactionTemplate;
+    ThreadPoolTaskExecutor imageUploadExecutor;
+
+    public ProductImageService(
+            ProductImageRepository productImageRepository,
+            ProductRepository productRepository,
+            FileStorageService fileStorageService,
+            ImageVariantService imageVariantService,
+            ProductImageMapper productImageMapper,
+            ProductCache productCache,
+            TransactionTemplate transactionTemplate,
+            @Qualifier("imageUploadExecutor") ThreadPoolTaskExecutor imageUploadExecutor) {
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.fileStorageService = fileStorageService;
+        this.imageVariantService = imageVariantService;
+        this.productImageMapper = productImageMapper;
+        this.productCache = productCache;
+        this.transactionTemplate = transactionTemplate;
+        this.imageUploadExecutor = imageUploadExecutor;
+    }
 
-    @Transactional
+    // Ghi file song song truoc, chua mo transaction; sau do 1 transaction ngan chi de INSERT metadata.
+    // Loi o buoc nao thi xoa (song song) cac file da ghi
     @PreAuthorize("hasRole('ADMIN')")
     public List<ProductImageResponse> uploadProductImagesByProductId(Long productId, List<MultipartFile> files) {
         for (MultipartFile file : files) {
@@ -47,39 +77,88 @@ public class ProductImageService {
         // Neu user khong gui file nhung van tich truong files thi khong null -> can isEmpty(): true
         if (files.stream().allMatch(MultipartFile::isEmpty)) return Collections.emptyList();
 
+        // kiem tra som de khong ghi file vo ich, kiem tra lai trong transaction
+        if (!productRepository.existsById(productId)) throw new AppException(ErrorCode.PRODUCT_NOT_EXISTED);
+        if (productImageRepository.countByProductId(productId) + files.size() > MAX_IMAGES)
+            throw new AppException(ErrorCode.MAX_IMAGE_QUANTITY);
+
+        List<String> imageUrls = storeFiles(files);
+
+        List<ProductImage> newImages;
+        try {
+            newImages = transactionTemplate.execute(status -> saveImages(productId, imageUrls));
+        } catch (RuntimeException e) {
+            deleteFiles(imageUrls);
+            throw e;
+        }
+
+        return newImages.stream()
+                .map(productImageMapper::toProductImageResponse)
+                .toList();
+    }
+
+    private List<ProductImage> saveImages(Long productId, List<String> imageUrls) {
+        // khoa dong san pham: 2 lan upload dong thoi khong vuot qua MAX_IMAGES, khong cung tao anh chinh
         Product product = productRepository
-                .findById(productId)
+                .findByIdForUpdate(productId)
                 .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_EXISTED));
 
-        List<ProductImage> existedImages = productImageRepository.findAllByProductId(productId);
-        if (existedImages.size() + files.size() > 5) throw new AppException(ErrorCode.MAX_IMAGE_QUANTITY);
+        long existedImages = productImageRepository.countByProductId(productId);
+        if (existedImages + imageUrls.size() > MAX_IMAGES) throw new AppException(ErrorCode.MAX_IMAGE_QUANTITY);
 
         List<ProductImage> newImages = new ArrayList<>();
+        for (String imageUrl : imageUrls) {
+            newImages.add(ProductImage.builder()
+                    .imageUrl(imageUrl)
+                    .isPrimary(existedImages == 0 && newImages.isEmpty())
+                    .product(product)
+                    .build());
+        }
 
-        try {
-            for (MultipartFile file : files) {
-                String imageUrl = fileStorageService.storeFile(file);
+        productImageRepository.saveAll(newImages);
+        productCache.evictImages(productId);
 
-                ProductImage productImage = ProductImage.builder()
-                        .imageUrl(imageUrl)
-                        .isPrimary(existedImages.isEmpty() && newImages.isEmpty())
-                        .product(product)
-                        .build();
+        // ban thu nho tao o nen sau commit, request tra ve ngay khi anh goc da luu
+        newImages.forEach(imageVariantService::generate);
 
-                newImages.add(productImage);
-            }
+        return newImages;
+    }
 
-            productImageRepository.saveAll(newImages);
-        } catch (Exception e) {
-            for (ProductImage productImage : newImages) {
-                fileStorageService.deleteFile(productImage.getImageUrl());
-            }
+    // giu thu tu cua files; 1 file loi thi doi cac file khac xong, xoa cac file da ghi roi nem loi do
+    private List<String> storeFiles(List<MultipartFile> files) {
+        List<CompletableFuture<String>> futures = files.stream()
+                .map(file ->
+                        CompletableFuture.supplyAsync(() -> fileStorageService.storeFile(file), imageUploadExecutor))
+                .toList();
+
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            deleteFiles(futures.stream()
+                    .filter(future -> !future.isCompletedExceptionally())
+                    .map(CompletableFuture::join)
+                    .toList());
+
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
             throw e;
         }
 
-        return newImages.stream()
-                .map(productImageMapper::toProductImageResponse)
-                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private void deleteFiles(List<String> fileNames) {
+        CompletableFuture.allOf(fileNames.stream()
+                        .map(fileName -> CompletableFuture.runAsync(() -> deleteFile(fileName), imageUploadExecutor))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+    }
+
+    private void deleteFile(String fileName) {
+        try {
+            fileStorageService.deleteFile(fileName);
+        } catch (Exception e) {
+            log.info("Cannot delete images: " + e.toString());
+        }
     }
 
     public List<ProductImageResponse> getProductImagesByProductId(Long productId) {
@@ -90,25 +169,27 @@ public class ProductImageService {
                 .toList();
     }
 
+    public long getImagesLastModified(Long productId) {
+        return productCache.getImagesLastModified(productId);
+    }
+
+    // Khoa dong san pham (nhu upload) de cac lan doi anh chinh/upload cua cung san pham chay lan luot,
+    // cau UPDATE doc ban moi nhat nen luon con dung 1 anh chinh
+    @Transactional
     @PreAuthorize("hasRole('ADMIN')")
     public ProductImageResponse updateProductImage(Long imageId) {
         ProductImage productImage = productImageRepository
                 .findById(imageId)
                 .orElseThrow(() -> new AppException(ErrorCode.IMAGE_NOT_EXISTED));
 
-        if (!productImage.getIsPrimary()) {
-            List<ProductImage> productImages = productImageRepository.findAllByProductId(
-                    productImage.getProduct().getId());
+        Long productId = productImage.getProduct().getId();
+        productRepository.findByIdForUpdate(productId);
 
-            for (ProductImage image : productImages) {
-                if (image.getIsPrimary()) image.setIsPrimary(false);
-                productImageRepository.save(image);
-            }
+        if (productImageRepository.switchPrimary(productId, imageId) > 0) productCache.evictImages(productId);
 
-            productImage.setIsPrimary(true);
-        }
+        productImage.setIsPrimary(true);
 
-        return productImageMapper.toProductImageResponse(productImageRepository.save(productImage));
+        return productImageMapper.toProductImageResponse(productImage);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -118,13 +199,11 @@ public class ProductImageService {
         if (productImageOptional.isPresent()) {
             ProductImage productImage = productImageOptional.get();
 
-            try {
-                fileStorageService.deleteFile(productImage.getImageUrl());
-            } catch (Exception e) {
-                log.info("Cannot delete images: " + e.toString());
-            }
-        }
+            // xoa dong truoc: file dung chung (cung noi dung) chi bi xoa khi khong con dong nao tro toi
+            productImageRepository.deleteById(imageId);
+            productCache.evictImages(productImage.getProduct().getId());
 
-        productImageRepository.deleteById(imageId);
+            ImageVariantService.getFileNames(productImage).forEach(this::deleteFile);
+        }
     }
 }
@@ -1,30 +1,44 @@
 package com.project.shopapp.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.project.shopapp.cache.CountCache;
+import com.project.shopapp.cache.ProductCache;
+import com.project.shopapp.cache.ReferenceDataCache;
+import com.project.shopapp.constant.CountMode;
+import com.project.shopapp.dto.request.PageCursor;
 import com.project.shopapp.dto.request.ProductRequest;
+import com.project.shopapp.dto.response.CursorPageResponse;
 import com.project.shopapp.dto.response.ProductResponse;
-import com.project.shopapp.entity.Cart;
 import com.project.shopapp.entity.Category;
 import com.project.shopapp.entity.Product;
-import com.project.shopapp.entity.ProductImage;
 import com.project.shopapp.exception.AppException;
 import com.project.shopapp.exception.ErrorCode;
 import com.project.shopapp.mapper.ProductMapper;
-import com.project.shopapp.repository.CartRepository;
-import com.project.shopapp.repository.CategoryRepository;
 import com.project.shopapp.repository.ProductImageRepository;
 import com.project.shopapp.repository.ProductRepository;
+import com.project.shopapp.search.ProductSearchIndex;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
@@ -32,11 +46,17 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class ProductService {
     ProductRepository productRepository;
-    CategoryRepository categoryRepository;
-    CartRepository cartRepository;
     ProductImageRepository productImageRepository;
     FileStorageService fileStorageService;
+    FileDeletionService fileDeletionService;
+    ImageVariantService imageVariantService;
+    InventoryReservationService inventoryReservationService;
+    CartRepricingService cartRepricingService;
     ProductMapper productMapper;
+    ProductCache productCache;
+    ProductSearchIndex productSearchIndex;
+    CountCache countCache;
+    ReferenceDataCache referenceDataCache;
 
     @PreAuthorize("hasRole('ADMIN')")
     public ProductResponse createProduct(ProductRequest request) {
@@ -44,8 +64,8 @@ public class ProductService {
 
         Product product = productMapper.toProduct(request);
 
-        Category category = categoryRepository
-                .findById(request.getCategory())
+        Category category = referenceDataCache
+                .getCategory(request.getCategory())
                 .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_EXISTED));
 
         product.setCategory(category);
@@ -59,26 +79,147 @@ public class ProductService {
 
         product.setIsActive(true);
 
-        return productMapper.toProductResponse(productRepository.save(product));
+        product = productRepository.save(product);
+        productCache.evictListings();
+        productSearchIndex.index(product);
+
+        if (StringUtils.hasText(imageUrl)) imageVariantService.generate(product);
+
+        return productMapper.toProductResponse(product);
     }
 
     public Page<ProductResponse> getProductsByKeyword(String keyword, int page, int size) {
+        if (page == 0) return productCache.getFirstPage(keyword, size, () -> findByKeyword(keyword, page, size));
+
+        return findByKeyword(keyword, page, size);
+    }
+
+    private Page<ProductResponse> findByKeyword(String keyword, int page, int size) {
+        if (StringUtils.hasText(keyword) && productSearchIndex.isReady())
+            return searchIndex(keyword, document -> true, PageRequest.of(page, size));
+
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
 
         return productRepository.findByKeyword(keyword, pageable).map(productMapper::toProductResponse);
     }
 
-    public Page<ProductResponse> findProductsByQuerydsl(
-            String keyword, Float fromPrice, Float toPrice, Boolean isActive, Long categoryId, Pageable pageable) {
-        return productRepository
-                .findProductsByQuerydsl(keyword, fromPrice, toPrice, categoryId, isActive, pageable)
-                .map(productMapper::toProductResponse);
+    public Slice<ProductResponse> findProductsByQuerydsl(
+            String keyword,
+            Float fromPrice,
+            Float toPrice,
+            Boolean isActive,
+            Long categoryId,
+            CountMode countMode,
+            Pageable pageable) {
+        if (StringUtils.hasText(keyword) && productSearchIndex.isReady())
+            return searchIndex(keyword, indexFilter(fromPrice, toPrice, isActive, categoryId), pageable);
+
+        Slice<Product> products =
+                switch (countMode) {
+                    case EXACT -> productRepository.findProductsByQuerydsl(
+                            keyword, fromPrice, toPrice, categoryId, isActive, pageable);
+                    case NONE -> productRepository.findProductsSliceByQuerydsl(
+                            keyword, fromPrice, toPrice, categoryId, isActive, pageable);
+                    case CACHED -> new PageImpl<>(
+                            productRepository
+                                    .findProductsSliceByQuerydsl(
+                                            keyword, fromPrice, toPrice, categoryId, isActive, pageable)
+                                    .getContent(),
+                            pageable,
+                            countCache.getCount(
+                                    Arrays.asList("products", keyword, fromPrice, toPrice, categoryId, isActive),
+                                    () -> productRepository.countProductsByQuerydsl(
+                                            keyword, fromPrice, toPrice, categoryId, isActive)));
+                };
+
+        return products.map(productMapper::toProductResponse);
+    }
+
+    public CursorPageResponse<ProductResponse> getProductsByCursor(String keyword, String cursor, int size) {
+        return findProductsByCursor(keyword, null, null, null, null, cursor, size);
+    }
+
+    // phan trang theo (createdAt, id) thay cho offset, lay size + 1 ban ghi de biet con trang sau
+    public CursorPageResponse<ProductResponse> findProductsByCursor(
+            String keyword,
+            Float fromPrice,
+            Float toPrice,
+            Boolean isActive,
+            Long categoryId,
+            String cursor,
+            int size) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+
+        if (StringUtils.hasText(keyword) && productSearchIndex.isReady()) {
+            Predicate<ProductSearchIndex.IndexedProduct> filter = indexFilter(fromPrice, toPrice, isActive, categoryId);
+            if (pageCursor != null)
+                filter = filter.and(document -> pageCursor.precedes(document.createdAt(), document.id()));
+
+            Pageable pageable = PageRequest.of(0, size + 1, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+
+            List<ProductResponse> rows =
+                    hydrate(productSearchIndex.search(keyword, filter, pageable).ids());
+
+            return CursorPageResponse.of(
+                    rows, size, Function.identity(), ProductResponse::getCreatedAt, ProductResponse::getId);
+        }
+
+        List<Product> rows = productRepository.findProductsByCursor(
+                keyword,
+                fromPrice,
+                toPrice,
+                categoryId,
+                isActive,
+                pageCursor != null ? pageCursor.createdAt() : null,
+                pageCursor != null ? pageCursor.id() : null,
+                size + 1);
+
+        return CursorPageResponse.of(
+                rows, size, productMapper::toProductResponse, Product::getCreatedAt, Product::getId);
+    }
+
+    private Predicate<ProductSearchIndex.IndexedProduct> indexFilter(
+            Float fromPrice, Float toPrice, Boolean isActive, Long categoryId) {
+        return document -> (fromPrice == null || document.price() >= fromPrice)
+                && (toPrice == null || document.price() <= toPrice)
+                && (isActive == null || isActive.equals(document.isActive()))
+                && (categoryId == null || categoryId.equals(document.categoryId()));
+    }
+
+    // lay id tu index roi nap 1 lan bang findAllById, giu nguyen thu tu cua index
+    private Page<ProductResponse> searchIndex(
+            String keyword,
+            Predicate<ProductSearchIndex.IndexedProduct> filter,
+            Pageable pageable) {
+        ProductSearchIndex.SearchResult result = productSearchIndex.search(keyword, filter, pageable);
+
+        return new PageImpl<>(hydrate(result.ids()), pageable, result.total());
+    }
+
+    private List<ProductResponse> hydrate(List<Long> ids) {
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(productMapper::toProductResponse)
+                .toList();
     }
 
     public ProductResponse getProduct(Long productId) {
-        return productMapper.toProductResponse(productRepository
+        return productCache.getProduct(productId, () -> productMapper.toProductResponse(productRepository
                 .findById(productId)
-                .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_EXISTED)));
+                .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_EXISTED))));
+    }
+
+    // version cho conditional GET, tinh tu du lieu da co san, khong truy van
+    public long getLastModified(ProductResponse product) {
+        return productCache.getLastModified(product);
+    }
+
+    public long getCatalogLastModified() {
+        return productCache.getCatalogLastModified();
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -87,34 +228,40 @@ public class ProductService {
                 .findById(productId)
                 .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_EXISTED));
 
-        Category category = categoryRepository
-                .findById(request.getCategory())
+        Category category = referenceDataCache
+                .getCategory(request.getCategory())
                 .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_EXISTED));
 
         if (!product.getName().equals(request.getName()) && productRepository.existsByName(request.getName()))
             throw new AppException(ErrorCode.PRODUCT_EXISTED);
 
         float oldPrice = product.getPrice();
+        int oldQuantity = product.getQuantity();
 
         productMapper.updateProduct(product, request);
 
-        if (request.getThumbnail() != null && !request.getThumbnail().isEmpty())
+        // san pham hot: so luong that nam tren bo dem, chi cong/tru chenh lech thay vi ghi de cot quantity
+        boolean hot = inventoryReservationService.isHot(productId);
+        if (hot) product.setQuantity(oldQuantity);
+
+        boolean thumbnailChanged = request.getThumbnail() != null && !request.getThumbnail().isEmpty();
+        if (thumbnailChanged) {
             product.setThumbnail(fileStorageService.storeFile(request.getThumbnail()));
+            product.setListThumbnail(null);
+        }
 
         product.setCategory(category);
 
         productRepository.save(product);
+        productSearchIndex.index(product);
 
-        List<Cart> carts = cartRepository.findAllByProduct(product);
+        if (thumbnailChanged) imageVariantService.generate(product);
 
-        if (oldPrice != product.getPrice()) {
-            for (Cart cart : carts) {
-                cart.setPrice(product.getPrice());
-                cart.setTotalMoney(product.getPrice() * cart.getQuantity());
-            }
+        if (hot) inventoryReservationService.setHotQuantity(productId, request.getQuantity());
 
-            cartRepository.saveAll(carts);
-        }
+        if (oldPrice != product.getPrice()) cartRepricingService.reprice(productId, product.getPrice());
+
+        productCache.evictProduct(productId);
 
         return productMapper.toProductResponse(product);
     }
@@ -126,24 +273,33 @@ public class ProductService {
                 .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_EXISTED));
 
         product.setIsActive(!product.getIsActive());
+        product = productRepository.save(product);
 
-        return productMapper.toProductResponse(productRepository.save(product));
+        productCache.evictProduct(productId);
+        productSearchIndex.index(product);
+
+        return productMapper.toProductResponse(product);
     }
 
+    // File anh chi duoc ghi vao hang doi xoa cung transaction, FileDeletionService xoa sau khi commit
+    @Transactional
     public void deleteProduct(Long productId) {
-        List<ProductImage> productImages = productImageRepository.findAllByProductId(productId);
-        log.info("{}", productImages.size());
-
-        productImageRepository.deleteAll(productImages);
-
+        List<String> fileNames = new ArrayList<>();
+        productRepository.findById(productId).ifPresent(product -> {
+            fileNames.add(product.getThumbnail());
+            fileNames.add(product.getListThumbnail());
+        });
+        productImageRepository.findAllByProductId(productId).stream()
+                .map(ImageVariantService::getFileNames)
+                .forEach(fileNames::addAll);
+
+        productImageRepository.deleteByProductId(productId);
         productRepository.deleteById(productId);
 
-        for (ProductImage productImage : productImages) {
-            try {
-                fileStorageService.deleteFile(productImage.getImageUrl());
-            } catch (Exception e) {
-                log.info("Cannot delete images: " + e.toString());
-            }
-        }
+        fileDeletionService.enqueue(fileNames);
+
+        productCache.evictProduct(productId);
+        productCache.evictImages(productId);
+        productSearchIndex.remove(productId);
     }
 }
@@ -2,6 +2,7 @@ package com.project.shopapp.service;
 
 import java.util.List;
 
+import com.project.shopapp.cache.ReferenceDataCache;
 import com.project.shopapp.dto.request.RoleRequest;
 import com.project.shopapp.dto.response.RoleResponse;
 import com.project.shopapp.entity.Role;
@@ -21,6 +22,7 @@ import org.springframework.stereotype.Service;
 public class RoleService {
     RoleRepository roleRepository;
     RoleMapper roleMapper;
+    ReferenceDataCache referenceDataCache;
 
     @PreAuthorize("hasRole('ADMIN')")
     public RoleResponse createRole(RoleRequest request) {
@@ -29,6 +31,7 @@ public class RoleService {
         Role role = roleMapper.toRole(request);
 
         role = roleRepository.save(role);
+        referenceDataCache.refresh();
 
         return roleMapper.toRoleResponse(role);
     }
@@ -46,12 +49,15 @@ public class RoleService {
             throw new AppException(ErrorCode.ROLE_EXISTED);
 
         roleMapper.updateRole(role, request);
+        role = roleRepository.save(role);
+        referenceDataCache.refresh();
 
-        return roleMapper.toRoleResponse(roleRepository.save(role));
+        return roleMapper.toRoleResponse(role);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     public void deleteRole(Long roleId) {
         roleRepository.deleteById(roleId);
+        referenceDataCache.refresh();
     }
 }
@@ -0,0 +1,88 @@
+package com.project.shopapp.service;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.project.shopapp.entity.InvalidatedToken;
+import com.project.shopapp.repository.InvalidatedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class TokenRevocationService {
+    InvalidatedTokenRepository invalidatedTokenRepository;
+
+    // jti -> thoi diem token khong con dung duoc nua (ke ca de refresh)
+    Map<String, Date> revokedTokens = new ConcurrentHashMap<>();
+
+    @NonFinal
+    volatile boolean loaded = false;
+
+    @PostConstruct
+    public void loadRevokedTokens() {
+        try {
+            invalidatedTokenRepository
+                    .findAllByExpiryTimeAfter(new Date())
+                    .forEach(token -> revokedTokens.put(token.getId(), token.getExpiryTime()));
+
+            loaded = true;
+
+            log.info("Loaded {} revoked tokens", revokedTokens.size());
+        } catch (DataAccessException e) {
+            // khong lam hong luc khoi dong, kiem tra truc tiep tren DB cho den khi sweep nap lai duoc
+            log.warn("Cannot load revoked tokens, falling back to database lookups", e);
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) return false;
+
+        if (revokedTokens.containsKey(jti)) return true;
+
+        return !loaded && invalidatedTokenRepository.existsById(jti);
+    }
+
+    // Cho refresh/logout: set chi thay token thu hoi o instance khac sau lan sweep ke tiep,
+    // trong khoang do token da logout van refresh duoc thanh token moi -> doc thang DB
+    public boolean isRevokedStrict(String jti) {
+        if (jti == null) return false;
+
+        if (revokedTokens.containsKey(jti)) return true;
+
+        return invalidatedTokenRepository.existsById(jti);
+    }
+
+    public void revoke(String jti, Date expiryTime) {
+        invalidatedTokenRepository.save(
+                InvalidatedToken.builder().id(jti).expiryTime(expiryTime).build());
+
+        revokedTokens.put(jti, expiryTime);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${jwt.revocation.sweep-interval:60000}",
+            initialDelayString = "${jwt.revocation.sweep-interval:60000}")
+    // khong @Transactional: cau DELETE commit rieng, loi khi nap lai khong lam rollback viec xoa
+    public void sweepExpiredTokens() {
+        Date now = new Date();
+
+        int deleted = invalidatedTokenRepository.deleteAllExpiredBefore(now);
+        revokedTokens.values().removeIf(expiryTime -> expiryTime.before(now));
+
+        // nap lai tu DB de nhan token bi thu hoi boi instance khac
+        loadRevokedTokens();
+
+        log.info("Purged {} expired invalidated tokens", deleted);
+    }
+}
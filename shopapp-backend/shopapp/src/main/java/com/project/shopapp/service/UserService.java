@@ -1,14 +1,22 @@
 package com.project.shopapp.service;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 
+import com.project.shopapp.cache.CountCache;
+import com.project.shopapp.cache.PrincipalCache;
+import com.project.shopapp.cache.ReferenceDataCache;
+import com.project.shopapp.cache.TokenCache;
+import com.project.shopapp.constant.CountMode;
 import com.project.shopapp.constant.PredefinedRole;
+import com.project.shopapp.dto.request.PageCursor;
 import com.project.shopapp.dto.request.PasswordCreationRequest;
 import com.project.shopapp.dto.request.UserCreationRequest;
 import com.project.shopapp.dto.request.UserRolesUpdateRequest;
 import com.project.shopapp.dto.request.UserUpdateRequest;
+import com.project.shopapp.dto.response.CursorPageResponse;
 import com.project.shopapp.dto.response.UserResponse;
 import com.project.shopapp.entity.Role;
 import com.project.shopapp.entity.User;
@@ -24,14 +32,15 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -43,19 +52,23 @@ public class UserService {
     UserRepository userRepository;
     RoleRepository roleRepository;
     UserMapper userMapper;
-    PasswordEncoder passwordEncoder;
+    PasswordHashingService passwordHashingService;
+    TokenCache tokenCache;
+    CountCache countCache;
+    PrincipalCache principalCache;
+    ReferenceDataCache referenceDataCache;
 
     public UserResponse createUser(UserCreationRequest request) {
         User user = userMapper.toUser(request);
 
         HashSet<Role> roles = new HashSet<>();
-        roleRepository.findByName(PredefinedRole.USER.name()).ifPresent(roles::add);
+        referenceDataCache.getRole(PredefinedRole.USER.name()).ifPresent(roles::add);
 
         user.setRoles(roles);
 
         user.setIsActive(true);
 
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
 
         try {
             user = userRepository.save(user);
@@ -63,6 +76,9 @@ public class UserService {
             throw new AppException(ErrorCode.PHONE_NUMBER_EXISTED);
         }
 
+        // co the dang cache ket qua "khong ton tai"
+        principalCache.invalidate(request.getPhoneNumber());
+
         return userMapper.toUserResponse(user);
     }
 
@@ -77,7 +93,7 @@ public class UserService {
         if(StringUtils.hasText(user.getPassword()))
             throw new AppException(ErrorCode.PASSWORD_EXISTED);
 
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
 
         userRepository.save(user);
     }
@@ -92,6 +108,11 @@ public class UserService {
         return userRepository.findAll(pageable).map(userMapper::toUserResponse);
     }
 
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public CursorPageResponse<UserResponse> getUsersByCursor(String cursor, int size) {
+        return usersByCursor(null, null, null, null, null, cursor, size);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     public Page<UserResponse> searchUsers(String keyword, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
@@ -102,11 +123,68 @@ public class UserService {
     }
 
     @PreAuthorize("hasRole('ADMIN')")
-    public Page<UserResponse> findUsersByQuerydsl(
-            String keyword, Boolean isActive, LocalDate startDate, LocalDate endDate, Long roleId, Pageable pageable) {
-        return userRepository
-                .findUsersByQuerydsl(keyword, isActive, startDate, endDate, roleId, pageable)
-                .map(userMapper::toUserResponse);
+    public Slice<UserResponse> findUsersByQuerydsl(
+            String keyword,
+            Boolean isActive,
+            LocalDate startDate,
+            LocalDate endDate,
+            Long roleId,
+            CountMode countMode,
+            Pageable pageable) {
+        Slice<User> users =
+                switch (countMode) {
+                    case EXACT -> userRepository.findUsersByQuerydsl(
+                            keyword, isActive, startDate, endDate, roleId, pageable);
+                    case NONE -> userRepository.findUsersSliceByQuerydsl(
+                            keyword, isActive, startDate, endDate, roleId, pageable);
+                    case CACHED -> new PageImpl<>(
+                            userRepository
+                                    .findUsersSliceByQuerydsl(keyword, isActive, startDate, endDate, roleId, pageable)
+                                    .getContent(),
+                            pageable,
+                            countCache.getCount(
+                                    Arrays.asList("users", keyword, isActive, startDate, endDate, roleId),
+                                    () -> userRepository.countUsersByQuerydsl(
+                                            keyword, isActive, startDate, endDate, roleId)));
+                };
+
+        return users.map(userMapper::toUserResponse);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    public CursorPageResponse<UserResponse> findUsersByCursor(
+            String keyword,
+            Boolean isActive,
+            LocalDate startDate,
+            LocalDate endDate,
+            Long roleId,
+            String cursor,
+            int size) {
+        return usersByCursor(keyword, isActive, startDate, endDate, roleId, cursor, size);
+    }
+
+    // phan trang theo (createdAt, id) thay cho offset, lay size + 1 ban ghi de biet con trang sau
+    private CursorPageResponse<UserResponse> usersByCursor(
+            String keyword,
+            Boolean isActive,
+            LocalDate startDate,
+            LocalDate endDate,
+            Long roleId,
+            String cursor,
+            int size) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+
+        List<User> rows = userRepository.findUsersByCursor(
+                keyword,
+                isActive,
+                startDate,
+                endDate,
+                roleId,
+                pageCursor != null ? pageCursor.createdAt() : null,
+                pageCursor != null ? pageCursor.id() : null,
+                size + 1);
+
+        return CursorPageResponse.of(rows, size, userMapper::toUserResponse, User::getCreatedAt, User::getId);
     }
 
     @PostAuthorize("hasRole('ADMIN') or returnObject.phoneNumber == authentication.name")
@@ -140,9 +218,12 @@ public class UserService {
         if (!phoneNumber.equals(user.getPhoneNumber())) throw new AppException(ErrorCode.UNAUTHORIZED);
 
         userMapper.updateUser(user, request);
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
+        user = userRepository.save(user);
+
+        principalCache.invalidate(user.getPhoneNumber());
 
-        return userMapper.toUserResponse(userRepository.save(user));
+        return userMapper.toUserResponse(user);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -151,8 +232,12 @@ public class UserService {
         User user = userRepository.findById(userId).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
 
         user.setIsActive(!user.getIsActive());
+        user = userRepository.save(user);
+
+        tokenCache.invalidateSubject(user.getPhoneNumber());
+        principalCache.invalidate(user.getPhoneNumber());
 
-        return userMapper.toUserResponse(userRepository.save(user));
+        return userMapper.toUserResponse(user);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -161,11 +246,15 @@ public class UserService {
 
         List<Role> roles = roleRepository.findAllById(request.getRoleIds());
         user.setRoles(new HashSet<>(roles));
+        user = userRepository.save(user);
+
+        principalCache.invalidate(user.getPhoneNumber());
 
-        return userMapper.toUserResponse(userRepository.save(user));
+        return userMapper.toUserResponse(user);
     }
 
     public void deleteUser(Long userId) {
         userRepository.deleteById(userId);
+        principalCache.invalidate(userId);
     }
 }
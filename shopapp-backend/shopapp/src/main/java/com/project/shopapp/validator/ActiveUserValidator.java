@@ -0,0 +1,28 @@
+package com.project.shopapp.validator;
+
+import com.project.shopapp.cache.PrincipalCache;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class ActiveUserValidator implements OAuth2TokenValidator<Jwt> {
+    PrincipalCache principalCache;
+
+    @Override
+    public OAuth2TokenValidatorResult validate(Jwt jwt) {
+        if (principalCache.isDeactivated(jwt.getSubject()))
+            return OAuth2TokenValidatorResult.failure(
+                    new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN, "User is deactivated", null));
+
+        return OAuth2TokenValidatorResult.success();
+    }
+}
@@ -0,0 +1,166 @@
+package com.project.shopapp.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.project.shopapp.ShopappApplication;
+import com.project.shopapp.entity.*;
+import com.project.shopapp.repository.*;
+import com.project.shopapp.service.CartRepricingService;
+import com.project.shopapp.service.CartService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+// Gia luu trong gio hang (STORED) so voi tinh luc doc (LAZY) khi 1 san pham nam trong FAN_OUT gio hang:
+// read = getMyCart 20 dong, write = doi gia san pham, storm = 3 thread doc + 1 thread doi gia lien tuc
+// Chay bang ham main() (hoac org.openjdk.jmh.Main CartPricingBenchmark) sau khi test-compile
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartPricingBenchmark {
+    static final int FAN_OUT = 5000;
+    static final int CART_LINES = 20;
+    static final String PHONE_NUMBER = "0900000000";
+
+    @Param({"STORED", "LAZY"})
+    String mode;
+
+    ConfigurableApplicationContext context;
+    CartService cartService;
+    CartRepricingService cartRepricingService;
+    ProductRepository productRepository;
+
+    Product hotProduct;
+    float price = 10f;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(ShopappApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:cartpricing-" + mode + ";MODE=MYSQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=sa",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--cart.pricing-mode=" + mode,
+                        // do chi phi UPDATE dong bo, khong day sang thread nen
+                        "--cart.repricing.async-threshold=" + Integer.MAX_VALUE,
+                        "--outbound.identity.google.client-secret=benchmark",
+                        "--outbound.identity.github.client-secret=benchmark",
+                        "--logging.level.root=WARN");
+
+        cartService = context.getBean(CartService.class);
+        cartRepricingService = context.getBean(CartRepricingService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        CartRepository cartRepository = context.getBean(CartRepository.class);
+
+        Category category =
+                context.getBean(CategoryRepository.class).save(Category.builder().name("Benchmark").build());
+
+        User reader = userRepository.save(User.builder()
+                .phoneNumber(PHONE_NUMBER)
+                .password("benchmark")
+                .isActive(true)
+                .build());
+        User crowd = userRepository.save(User.builder()
+                .phoneNumber("0911111111")
+                .password("benchmark")
+                .isActive(true)
+                .build());
+
+        hotProduct = productRepository.save(product("Hot", category));
+
+        List<Cart> carts = new ArrayList<>();
+        carts.add(cart(reader, hotProduct, null));
+        for (int i = 1; i < CART_LINES; i++)
+            carts.add(cart(reader, productRepository.save(product("P" + i, category)), null));
+        // cung 1 san pham trong FAN_OUT gio hang khac (khac mau de khong gop dong)
+        for (int i = 0; i < FAN_OUT; i++) carts.add(cart(crowd, hotProduct, "c" + i));
+        cartRepository.saveAll(carts);
+
+        // thread cua JMH khac thread setup
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(PHONE_NUMBER, null, List.of()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object read() {
+        return cartService.getMyCart(0, CART_LINES);
+    }
+
+    @Benchmark
+    public void write() {
+        changePrice();
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(3)
+    public Object stormRead() {
+        return cartService.getMyCart(0, CART_LINES);
+    }
+
+    @Benchmark
+    @Group("storm")
+    @GroupThreads(1)
+    public void stormWrite() {
+        changePrice();
+    }
+
+    // duong ghi cua ProductService.updateProduct khi gia doi: luu products.price roi reprice gio hang
+    private synchronized void changePrice() {
+        price = price == 10f ? 11f : 10f;
+        hotProduct.setPrice(price);
+        hotProduct = productRepository.save(hotProduct);
+        cartRepricingService.reprice(hotProduct.getId(), price);
+    }
+
+    private Product product(String name, Category category) {
+        return Product.builder()
+                .name(name)
+                .price(10f)
+                .quantity(1000)
+                .isActive(true)
+                .category(category)
+                .build();
+    }
+
+    private Cart cart(User user, Product product, String color) {
+        boolean stored = "STORED".equals(mode);
+        return Cart.builder()
+                .user(user)
+                .product(product)
+                .quantity(1)
+                .color(color)
+                .price(stored ? product.getPrice() : null)
+                .totalMoney(stored ? product.getPrice() : null)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(CartPricingBenchmark.class.getSimpleName())
+                        .build())
+                .run();
+    }
+}
@@ -0,0 +1,188 @@
+package com.project.shopapp.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.project.shopapp.ShopappApplication;
+import com.project.shopapp.dto.request.OrderCreationRequest;
+import com.project.shopapp.entity.*;
+import com.project.shopapp.repository.*;
+import com.project.shopapp.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Checkout gio hang 50 dong: vong lap save tung dong (cach cu) so voi insert/update/delete theo lo
+// Chay bang ham main() (hoac org.openjdk.jmh.Main CheckoutBenchmark) sau khi test-compile
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+    static final int CART_LINES = 50;
+    static final String PHONE_NUMBER = "0900000000";
+
+    ConfigurableApplicationContext context;
+    OrderService orderService;
+    OrderRepository orderRepository;
+    OrderDetailRepository orderDetailRepository;
+    ProductRepository productRepository;
+    CartRepository cartRepository;
+    TransactionTemplate transactionTemplate;
+    Statistics statistics;
+
+    User user;
+    List<Product> products;
+    OrderCreationRequest request;
+
+    long statements;
+    long invocations;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(ShopappApplication.class)
+                .web(WebApplicationType.NONE)
+                // tham so dong lenh de ghi de datasource MySQL trong application.yaml
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:checkout;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=sa",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--outbound.identity.google.client-secret=benchmark",
+                        "--outbound.identity.github.client-secret=benchmark",
+                        "--logging.level.root=WARN");
+
+        orderService = context.getBean(OrderService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderDetailRepository = context.getBean(OrderDetailRepository.class);
+        productRepository = context.getBean(ProductRepository.class);
+        cartRepository = context.getBean(CartRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        statistics = context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+
+        Category category =
+                context.getBean(CategoryRepository.class).save(Category.builder().name("Benchmark").build());
+
+        user = context.getBean(UserRepository.class)
+                .save(User.builder()
+                        .phoneNumber(PHONE_NUMBER)
+                        .password("benchmark")
+                        .isActive(true)
+                        .build());
+
+        products = new ArrayList<>();
+        for (int i = 0; i < CART_LINES; i++) {
+            products.add(productRepository.save(Product.builder()
+                    .name("Product " + i)
+                    .price(10f)
+                    .quantity(Integer.MAX_VALUE)
+                    .isActive(true)
+                    .category(category)
+                    .build()));
+        }
+
+        request = OrderCreationRequest.builder()
+                .fullName("Benchmark")
+                .phoneNumber(PHONE_NUMBER)
+                .address("Ha Noi")
+                .build();
+
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(PHONE_NUMBER, null, List.of()));
+    }
+
+    @Setup(Level.Invocation)
+    public void fillCart() {
+        List<Cart> carts = new ArrayList<>();
+        for (Product product : products) {
+            carts.add(Cart.builder()
+                    .user(user)
+                    .product(product)
+                    .quantity(1)
+                    .price(product.getPrice())
+                    .totalMoney(product.getPrice())
+                    .build());
+        }
+
+        cartRepository.saveAll(carts);
+        statistics.clear();
+    }
+
+    @TearDown(Level.Invocation)
+    public void countStatements() {
+        statements += statistics.getPrepareStatementCount();
+        invocations++;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nJDBC statements per checkout: %.1f%n", (double) statements / invocations);
+        context.close();
+    }
+
+    @Benchmark
+    public Order legacyCheckout() {
+        return transactionTemplate.execute(status -> {
+            List<Cart> carts = cartRepository.findAllByUserId(user.getId());
+
+            Order order = orderRepository.save(Order.builder()
+                    .user(user)
+                    .fullName(request.getFullName())
+                    .phoneNumber(request.getPhoneNumber())
+                    .address(request.getAddress())
+                    .status("PENDING")
+                    .isActive(true)
+                    .totalMoney((float) carts.stream().mapToDouble(Cart::getTotalMoney).sum())
+                    .build());
+
+            for (Cart cart : carts) {
+                orderDetailRepository.save(OrderDetail.builder()
+                        .order(order)
+                        .product(cart.getProduct())
+                        .price(cart.getPrice())
+                        .numberOfProducts(cart.getQuantity())
+                        .totalMoney(cart.getTotalMoney())
+                        .color(cart.getColor())
+                        .build());
+
+                Product product = cart.getProduct();
+                product.setQuantity(product.getQuantity() - cart.getQuantity());
+                productRepository.save(product);
+            }
+
+            cartRepository.deleteAll(carts);
+
+            return order;
+        });
+    }
+
+    @Benchmark
+    public Object batchedCheckout() {
+        return orderService.createOrder(request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(CheckoutBenchmark.class.getSimpleName())
+                        .build())
+                .run();
+    }
+}
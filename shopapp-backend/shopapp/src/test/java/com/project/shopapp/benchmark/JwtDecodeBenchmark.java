@@ -0,0 +1,132 @@
+package com.project.shopapp.benchmark;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.nimbusds.jose.*;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.project.shopapp.cache.PrincipalCache;
+import com.project.shopapp.cache.TokenCache;
+import com.project.shopapp.configuration.CustomJwtDecoder;
+import com.project.shopapp.repository.InvalidatedTokenRepository;
+import com.project.shopapp.repository.UserRepository;
+import com.project.shopapp.service.TokenRevocationService;
+import com.project.shopapp.validator.ActiveUserValidator;
+import com.project.shopapp.validator.RevokedTokenValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+// So sanh duong decode cu (introspect + NimbusJwtDecoder) voi CustomJwtDecoder 1 lan parse/verify
+// Chay bang ham main() (hoac org.openjdk.jmh.Main JwtDecodeBenchmark) sau khi test-compile
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtDecodeBenchmark {
+    static final String SIGNER_KEY = "0ghcd9Ns7haKp9aqF4Vtftpf/8h3bP18ttqbr2z9UfPAwSEJIOZnT3nRVMgUdsNp";
+
+    String token;
+    UserRepository userRepository;
+    InvalidatedTokenRepository invalidatedTokenRepository;
+    NimbusJwtDecoder nimbusJwtDecoder;
+    CustomJwtDecoder customJwtDecoder;
+    CustomJwtDecoder cachedJwtDecoder;
+
+    @Setup
+    public void setup() throws JOSEException {
+        JWTClaimsSet claimsSet = new JWTClaimsSet.Builder()
+                .subject("1234567890")
+                .issuer("hieu.com")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plus(1, ChronoUnit.HOURS)))
+                .jwtID(UUID.randomUUID().toString())
+                .claim("scope", "ROLE_USER")
+                .build();
+
+        JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS512), new Payload(claimsSet.toJSONObject()));
+        jwsObject.sign(new MACSigner(SIGNER_KEY.getBytes()));
+        token = jwsObject.serialize();
+
+        userRepository = mock(UserRepository.class);
+        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
+                .thenReturn(false);
+
+        invalidatedTokenRepository = mock(InvalidatedTokenRepository.class);
+        when(invalidatedTokenRepository.findAllByExpiryTimeAfter(any())).thenReturn(Collections.emptyList());
+        when(invalidatedTokenRepository.existsById(anyString())).thenReturn(false);
+
+        nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(SIGNER_KEY.getBytes(), "HS512"))
+                .macAlgorithm(MacAlgorithm.HS512)
+                .build();
+
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(invalidatedTokenRepository);
+        PrincipalCache principalCache = new PrincipalCache(userRepository, 1000, 30, new SimpleMeterRegistry());
+        List<OAuth2TokenValidator<Jwt>> validators = List.of(
+                new RevokedTokenValidator(tokenRevocationService), new ActiveUserValidator(principalCache));
+
+        // max-ttl = 0 -> cache khong bao gio hit, do chi phi parse/verify thuan
+        customJwtDecoder =
+                new CustomJwtDecoder(
+                        SIGNER_KEY, new TokenCache(1, 0), tokenRevocationService, principalCache, validators);
+        cachedJwtDecoder =
+                new CustomJwtDecoder(
+                        SIGNER_KEY, new TokenCache(1000, 300), tokenRevocationService, principalCache, validators);
+    }
+
+    @Benchmark
+    public Jwt legacyDecode() throws Exception {
+        SignedJWT signedJWT = SignedJWT.parse(token);
+        JWSVerifier verifier = new MACVerifier(SIGNER_KEY.getBytes());
+
+        if (!signedJWT.verify(verifier)
+                || !signedJWT.getJWTClaimsSet().getExpirationTime().after(new Date()))
+            throw new JwtException("Token invalid");
+
+        if (userRepository.existsByPhoneNumberAndIsActive(
+                signedJWT.getJWTClaimsSet().getSubject(), false)) throw new JwtException("Token invalid");
+
+        if (invalidatedTokenRepository.existsById(signedJWT.getJWTClaimsSet().getJWTID()))
+            throw new JwtException("Token invalid");
+
+        return nimbusJwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt singlePassDecode() {
+        return customJwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt cachedDecode() {
+        return cachedJwtDecoder.decode(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(JwtDecodeBenchmark.class.getSimpleName())
+                        .build())
+                .run();
+    }
+}
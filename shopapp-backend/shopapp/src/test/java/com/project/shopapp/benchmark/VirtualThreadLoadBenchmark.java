@@ -0,0 +1,173 @@
+package com.project.shopapp.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+import com.project.shopapp.ShopappApplication;
+import com.project.shopapp.entity.Category;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.repository.CategoryRepository;
+import com.project.shopapp.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// 2000 ket noi dong thoi vao GET /products?page=1 (moi request 1 truy van DB, khong qua ProductCache):
+// thread cua Tomcat (toi da 200) so voi virtual thread + db.limiter. H2 trong bo nho khong co do tre mang
+// nen moi cau lenh SQL cho them dbLatencyMs. poolSize=10: DB la nut that, 2 che do nhu nhau, limiter giu hang doi;
+// poolSize=400: pool rong hon 200 thread cua Tomcat, virtual thread moi tan dung het.
+// Can JDK 21 (vd. image trong Dockerfile); JDK 17 bo qua spring.threads.virtual.enabled
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class VirtualThreadLoadBenchmark {
+    static final int CONNECTIONS = 2000;
+    static final int PRODUCTS = 20;
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"10", "400"})
+    int poolSize;
+
+    @Param({"5"})
+    long dbLatencyMs;
+
+    ConfigurableApplicationContext context;
+    ExecutorService clientExecutor;
+    HttpClient httpClient;
+    HttpRequest request;
+
+    AtomicLong errors = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (virtualThreads && Runtime.version().feature() < 21)
+            System.out.printf(
+                    "%nJDK %d has no virtual threads, running on platform threads%n", Runtime.version().feature());
+
+        context = new SpringApplicationBuilder(ShopappApplication.class)
+                .initializers(applicationContext -> applicationContext
+                        .getBeanFactory()
+                        .addBeanPostProcessor(new BeanPostProcessor() {
+                            @Override
+                            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                return bean instanceof DataSource dataSource ? slow(dataSource) : bean;
+                            }
+                        }))
+                // tham so dong lenh de ghi de datasource MySQL trong application.yaml
+                .run(
+                        "--server.port=0",
+                        "--server.tomcat.accept-count=" + CONNECTIONS,
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--db.limiter.max-waiting=-1",
+                        "--db.limiter.acquire-timeout=60000",
+                        "--spring.datasource.url=jdbc:h2:mem:load;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=sa",
+                        "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "--spring.datasource.hikari.minimum-idle=" + poolSize,
+                        "--spring.datasource.hikari.connection-timeout=60000",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--outbound.identity.google.client-secret=benchmark",
+                        "--outbound.identity.github.client-secret=benchmark",
+                        "--logging.level.root=WARN");
+
+        Category category =
+                context.getBean(CategoryRepository.class).save(Category.builder().name("Benchmark").build());
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        for (int i = 0; i < PRODUCTS; i++) {
+            productRepository.save(Product.builder()
+                    .name("Product " + i)
+                    .price(10f)
+                    .quantity(100)
+                    .isActive(true)
+                    .category(category)
+                    .build());
+        }
+
+        clientExecutor = Executors.newFixedThreadPool(8);
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/shopapp/products?page=1&size=10"))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%nFailed requests: %d%n", errors.get());
+        clientExecutor.shutdownNow();
+        context.close();
+    }
+
+    // 1 dot = 2000 request cung luc, moi request 1 ket noi (HTTP/1.1); ket qua tinh theo request/s
+    @Benchmark
+    @OperationsPerInvocation(CONNECTIONS)
+    public void concurrentRequests() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[CONNECTIONS];
+        for (int i = 0; i < CONNECTIONS; i++) {
+            responses[i] = httpClient
+                    .sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, e) -> {
+                        if (e != null || response.statusCode() != 200) errors.incrementAndGet();
+                        return null;
+                    });
+        }
+
+        CompletableFuture.allOf(responses).join();
+    }
+
+    // moi cau lenh SQL giu connection them dbLatencyMs nhu khi DB o may khac
+    private DataSource slow(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = obtainTargetDataSource().getConnection();
+
+                return (Connection) Proxy.newProxyInstance(
+                        Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                            if (method.getName().startsWith("prepare")) Thread.sleep(dbLatencyMs);
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                        });
+            }
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                        .include(VirtualThreadLoadBenchmark.class.getSimpleName())
+                        .build())
+                .run();
+    }
+}
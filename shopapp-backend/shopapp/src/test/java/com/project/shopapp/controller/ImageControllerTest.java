@@ -0,0 +1,136 @@
+package com.project.shopapp.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+// small.png nam trong ImageCache, large.png (> max-file-size) doc tu dia bang FileChannel
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "/test.properties", properties = "image.cache.max-file-size=16")
+public class ImageControllerTest {
+    static final String SMALL = "small-image";
+    static final String LARGE = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    @TempDir
+    static Path uploadDir;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void uploadPath(DynamicPropertyRegistry registry) {
+        registry.add("upload.path", () -> uploadDir.toString());
+    }
+
+    @BeforeAll
+    static void initData() throws IOException {
+        Files.writeString(uploadDir.resolve("small.png"), SMALL);
+        Files.writeString(uploadDir.resolve("large.png"), LARGE);
+        Files.createDirectories(uploadDir.resolve("tmp"));
+        Files.writeString(uploadDir.resolve("tmp/upload.part"), SMALL);
+    }
+
+    @Test
+    void getImage_smallImage_immutableWithETag() throws Exception {
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/small.png"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().string(SMALL))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void getImage_matchingETag_notModified() throws Exception {
+        // GIVEN
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/images/small.png"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/small.png").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getImage_rangeOfLargeImage_partialContent() throws Exception {
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/large.png").header(HttpHeaders.RANGE, "bytes=10-15"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-15/" + LARGE.length()))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 6))
+                .andExpect(content().string(LARGE.substring(10, 16)));
+    }
+
+    @Test
+    void getImage_suffixRangeOfSmallImage_partialContent() throws Exception {
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/small.png").header(HttpHeaders.RANGE, "bytes=-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string(SMALL.substring(SMALL.length() - 5)));
+    }
+
+    @Test
+    void getImage_rangeOutsideFile_rangeNotSatisfiable() throws Exception {
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/large.png").header(HttpHeaders.RANGE, "bytes=1000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + LARGE.length()));
+    }
+
+    @Test
+    void getImage_staleIfRange_fullContent() throws Exception {
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/large.png")
+                        .header(HttpHeaders.RANGE, "bytes=10-15")
+                        .header(HttpHeaders.IF_RANGE, "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(LARGE));
+    }
+
+    @Test
+    void getImage_outsideUploadPathOrTempFile_notFound() throws Exception {
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/tmp/upload.part")).andExpect(status().isNotFound());
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/missing.png")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getImage_largeImageDeletedAfterCached_notFound() throws Exception {
+        // GIVEN: entry chi co metadata da nam trong ImageCache
+        Files.writeString(uploadDir.resolve("deleted.png"), LARGE);
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/deleted.png")).andExpect(status().isOk());
+
+        // WHEN: instance khac xoa file, cache o day khong bi invalidate
+        Files.delete(uploadDir.resolve("deleted.png"));
+
+        // THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/images/deleted.png"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, not(containsString("immutable"))));
+    }
+}
@@ -1,7 +1,12 @@
 package com.project.shopapp.controller;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -16,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
@@ -88,4 +94,44 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("code").value(1902))
                 .andExpect(jsonPath("message").value("You do not have permission"));
     }
+
+    @Test
+    void getProduct_noValidator_returnsBodyWithETag() throws Exception {
+        // GIVEN
+        when(productService.getProduct(1L)).thenReturn(productResponse);
+        when(productService.getLastModified(any())).thenReturn(1_000_000L);
+
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"product-1-1000000\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("result.id").value(1));
+    }
+
+    @Test
+    void getProduct_matchingETag_notModified() throws Exception {
+        // GIVEN
+        when(productService.getProduct(1L)).thenReturn(productResponse);
+        when(productService.getLastModified(any())).thenReturn(1_000_000L);
+
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/products/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"product-1-1000000\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getProductsByKeyword_catalogUnchanged_notModifiedWithoutQuery() throws Exception {
+        // GIVEN
+        when(productService.getCatalogLastModified()).thenReturn(2_000_000L);
+
+        // WHEN, THEN
+        mockMvc.perform(MockMvcRequestBuilders.get("/products")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"products-2000000\""))
+                .andExpect(status().isNotModified());
+
+        verify(productService, never()).getProductsByKeyword(any(), anyInt(), anyInt());
+    }
 }
@@ -164,8 +164,6 @@ public class AuthenticationServiceTest {
     @Test
     void introspect_validRequest_success() throws ParseException, JOSEException {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(false);
         when(invalidatedTokenRepository.existsById(anyString())).thenReturn(false);
 
         // WHEN
@@ -206,8 +204,8 @@ public class AuthenticationServiceTest {
     @Test
     void introspect_deactivatedUser_fail() throws ParseException, JOSEException {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(true);
+        user.setIsActive(false);
+        when(userRepository.findByPhoneNumber(anyString())).thenReturn(Optional.of(user));
 
         // WHEN
         var response = authenticationService.introspect(introspectRequest);
@@ -219,8 +217,6 @@ public class AuthenticationServiceTest {
     @Test
     void introspect_revokedToken_fail() throws ParseException, JOSEException {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(false);
         when(invalidatedTokenRepository.existsById(anyString())).thenReturn(true);
 
         // WHEN
@@ -233,8 +229,6 @@ public class AuthenticationServiceTest {
     @Test
     void logout_validRequest_success() throws ParseException, JOSEException {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(false);
         when(invalidatedTokenRepository.existsById(anyString())).thenReturn(false);
         when(invalidatedTokenRepository.save(any())).thenReturn(invalidatedToken);
 
@@ -276,8 +270,8 @@ public class AuthenticationServiceTest {
     @Test
     void logout_deactivatedUser_fail() throws ParseException, JOSEException {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(true);
+        user.setIsActive(false);
+        when(userRepository.findByPhoneNumber(anyString())).thenReturn(Optional.of(user));
 
         // WHEN
         authenticationService.logout(logoutRequest);
@@ -289,8 +283,6 @@ public class AuthenticationServiceTest {
     @Test
     void logout_revokedToken_fail() throws ParseException, JOSEException {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(false);
         when(invalidatedTokenRepository.existsById(anyString())).thenReturn(true);
 
         // WHEN
@@ -303,8 +295,6 @@ public class AuthenticationServiceTest {
     @Test
     void refresh_validRequest_success() throws ParseException, JOSEException {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(false);
         when(invalidatedTokenRepository.existsById(anyString())).thenReturn(false);
         when(invalidatedTokenRepository.save(any())).thenReturn(invalidatedToken);
         when(userRepository.findByPhoneNumber(anyString())).thenReturn(Optional.of(user));
@@ -352,8 +342,8 @@ public class AuthenticationServiceTest {
     @Test
     void refresh_deactivatedUser_fail() {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(true);
+        user.setIsActive(false);
+        when(userRepository.findByPhoneNumber(anyString())).thenReturn(Optional.of(user));
 
         // WHEN
         var exception = assertThrows(AppException.class, () -> authenticationService.refreshToken(refreshRequest));
@@ -365,8 +355,6 @@ public class AuthenticationServiceTest {
     @Test
     void refresh_revokedToken_fail() {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(false);
         when(invalidatedTokenRepository.existsById(anyString())).thenReturn(true);
 
         // WHEN
@@ -379,8 +367,6 @@ public class AuthenticationServiceTest {
     @Test
     void refresh_userNotFound_fail() {
         // GIVEN
-        when(userRepository.existsByPhoneNumberAndIsActive(anyString(), anyBoolean()))
-                .thenReturn(false);
         when(invalidatedTokenRepository.existsById(anyString())).thenReturn(false);
         when(invalidatedTokenRepository.save(any())).thenReturn(invalidatedToken);
         when(userRepository.findByPhoneNumber(anyString())).thenReturn(Optional.ofNullable(null));
@@ -0,0 +1,142 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.project.shopapp.entity.Cart;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.entity.User;
+import com.project.shopapp.repository.CartRepository;
+import com.project.shopapp.repository.ProductRepository;
+import com.project.shopapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.TestPropertySource;
+
+@SpringBootTest
+@TestPropertySource(
+        locations = "/test.properties",
+        properties = {
+            "spring.datasource.url=jdbc:h2:mem:cartrepricing;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            // > 2 gio hang la chay nen, moi lo 2 dong
+            "cart.repricing.async-threshold=2",
+            "cart.repricing.chunk-size=2",
+            "cart.repricing.pool-size=1"
+        })
+public class CartRepricingServiceTest {
+    @Autowired
+    private CartRepricingService cartRepricingService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    @Qualifier("cartRepricingExecutor")
+    private ThreadPoolTaskExecutor cartRepricingExecutor;
+
+    private User user;
+
+    @BeforeEach
+    void initData() {
+        user = userRepository.save(User.builder()
+                .phoneNumber("0900000001")
+                .password("password")
+                .isActive(true)
+                .build());
+    }
+
+    @Test
+    void reprice_belowThreshold_updatedInRequest() {
+        // GIVEN
+        Product product = productWithPrice(10F);
+        List<Cart> carts = cartsOf(product, 2);
+        changePrice(product, 20F);
+
+        // WHEN
+        cartRepricingService.reprice(product.getId(), 20F);
+
+        // THEN: khong qua executor, doc lai ngay da thay gia moi
+        assertRepriced(carts, 20F);
+    }
+
+    @Test
+    void reprice_aboveThreshold_updatedInChunks() throws Exception {
+        // GIVEN: 5 gio hang -> 3 lo (2, 2, 1)
+        Product product = productWithPrice(10F);
+        List<Cart> carts = cartsOf(product, 5);
+        changePrice(product, 20F);
+
+        // WHEN
+        cartRepricingService.reprice(product.getId(), 20F);
+        // pool 1 thread: tac vu rong nay chay xong thi tac vu reprice da xong
+        cartRepricingExecutor.submit(() -> {}).get(30, TimeUnit.SECONDS);
+
+        // THEN
+        assertRepriced(carts, 20F);
+    }
+
+    @Test
+    void repriceInChunks_priceChangedAgain_stopsWithoutOverwriting() {
+        // GIVEN: tac vu cho gia 20 nhung admin da doi tiep sang 30
+        Product product = productWithPrice(10F);
+        List<Cart> carts = cartsOf(product, 3);
+        changePrice(product, 30F);
+
+        // WHEN
+        cartRepricingService.repriceInChunks(product.getId(), 20F);
+
+        // THEN: gio hang de cho tac vu cua gia 30, khong bi ghi gia 20
+        assertRepriced(carts, 10F);
+    }
+
+    private Product productWithPrice(Float price) {
+        return productRepository.save(Product.builder()
+                .name("Product " + System.nanoTime())
+                .price(price)
+                .quantity(100)
+                .isActive(true)
+                .build());
+    }
+
+    // gio hang luu gia cu cua san pham, so luong 1, 2, 3... de thanh tien moi dong khac nhau
+    private List<Cart> cartsOf(Product product, int count) {
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            carts.add(cartRepository.save(Cart.builder()
+                    .user(user)
+                    .product(product)
+                    .quantity(i)
+                    .price(product.getPrice())
+                    .totalMoney(product.getPrice() * i)
+                    .build()));
+        }
+        return carts;
+    }
+
+    private void changePrice(Product product, Float price) {
+        product.setPrice(price);
+        productRepository.save(product);
+    }
+
+    private void assertRepriced(List<Cart> carts, Float price) {
+        for (Cart cart : carts) {
+            Cart saved = cartRepository.findById(cart.getId()).orElseThrow();
+            assertThat(saved.getPrice()).isEqualTo(price);
+            assertThat(saved.getTotalMoney()).isEqualTo(price * saved.getQuantity());
+        }
+    }
+}
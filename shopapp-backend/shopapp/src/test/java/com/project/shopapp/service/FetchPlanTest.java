@@ -0,0 +1,211 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.project.shopapp.constant.CountMode;
+import com.project.shopapp.entity.*;
+import com.project.shopapp.repository.*;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+// Dem so cau SQL moi endpoint: so cau khong duoc tang theo so dong tra ve.
+// Chi dem cau chay tren thread cua test, khong tinh cac job @Scheduled chay cung context
+@SpringBootTest
+@TestPropertySource(
+        locations = "/test.properties",
+        properties = {
+            "spring.datasource.url=jdbc:h2:mem:fetchplan;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                    + "com.project.shopapp.service.FetchPlanTest$TestThreadStatements"
+        })
+@DirtiesContext
+public class FetchPlanTest {
+    static final String PHONE_NUMBER = "0900000000";
+    static final int ROWS = 10;
+    static final int PAGE_SIZE = 5;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderDetailService orderDetailService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    private Order order;
+
+    @BeforeEach
+    void initData() {
+        orderDetailRepository.deleteAll();
+        orderRepository.deleteAll();
+        cartRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = userRepository.save(User.builder()
+                .phoneNumber(PHONE_NUMBER)
+                .password("password")
+                .isActive(true)
+                .build());
+
+        // moi san pham 1 category rieng: N+1 se lo ra thanh 1 cau SELECT category cho moi dong
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            Category category = categoryRepository.save(
+                    Category.builder().name("Category " + i).build());
+
+            products.add(productRepository.save(Product.builder()
+                    .name("Product " + i)
+                    .price(10F)
+                    .quantity(100)
+                    .isActive(true)
+                    .category(category)
+                    .build()));
+        }
+
+        order = orderRepository.save(Order.builder()
+                .user(user)
+                .phoneNumber(PHONE_NUMBER)
+                .address("Ha Noi")
+                .totalMoney(10F * ROWS)
+                .build());
+
+        for (Product product : products) {
+            cartRepository.save(Cart.builder()
+                    .user(user)
+                    .product(product)
+                    .quantity(1)
+                    .price(10F)
+                    .totalMoney(10F)
+                    .build());
+
+            orderDetailRepository.save(OrderDetail.builder()
+                    .order(order)
+                    .product(product)
+                    .price(10F)
+                    .numberOfProducts(1)
+                    .totalMoney(10F)
+                    .build());
+        }
+    }
+
+    @Test
+    @WithMockUser(username = PHONE_NUMBER)
+    void getMyCart_onePageOfCarts_selectAndCountOnly() {
+        // WHEN
+        TestThreadStatements.start();
+        var response = cartService.getMyCart(0, PAGE_SIZE);
+
+        // THEN
+        assertThat(response.getContent()).hasSize(PAGE_SIZE);
+        assertThat(response.getTotalElements()).isEqualTo(ROWS);
+        assertThat(TestThreadStatements.count()).isEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(username = PHONE_NUMBER)
+    void getOrderDetailsByOrderId_onePageOfDetails_orderSelectAndCountOnly() {
+        // WHEN
+        TestThreadStatements.start();
+        var response = orderDetailService.getOrderDetailsByOrderId(order.getId(), 0, PAGE_SIZE);
+
+        // THEN
+        assertThat(response.getContent()).hasSize(PAGE_SIZE);
+        assertThat(response.getContent().get(0).getProductId()).isNotNull();
+        // order (kem user de kiem tra quyen) + order_details + COUNT
+        assertThat(TestThreadStatements.count()).isEqualTo(3);
+    }
+
+    @Test
+    void getProductsByKeyword_productsWithDistinctCategories_categoryFetchedInSameSelect() {
+        // WHEN: trang 1 khong di qua cache trang dau
+        TestThreadStatements.start();
+        var response = productService.getProductsByKeyword(null, 1, PAGE_SIZE);
+
+        // THEN
+        assertThat(response.getContent()).hasSize(PAGE_SIZE);
+        assertThat(response.getContent().get(0).getCategory().getName()).startsWith("Category");
+        assertThat(TestThreadStatements.count()).isEqualTo(2);
+    }
+
+    @Test
+    void findProductsByQuerydsl_productsWithDistinctCategories_categoryFetchedInSameSelect() {
+        // WHEN
+        TestThreadStatements.start();
+        var response = productService.findProductsByQuerydsl(
+                null, null, null, null, null, CountMode.EXACT, PageRequest.of(0, PAGE_SIZE, Sort.by("price")));
+
+        // THEN
+        assertThat(response.getContent()).hasSize(PAGE_SIZE);
+        assertThat(response.getContent().get(0).getCategory()).isNotNull();
+        assertThat(TestThreadStatements.count()).isEqualTo(2);
+    }
+
+    @Test
+    @WithMockUser(username = PHONE_NUMBER, roles = "ADMIN")
+    void getOrders_onePageOfOrders_userFetchedInSameSelect() {
+        // WHEN
+        TestThreadStatements.start();
+        var response = orderService.getOrders(0, PAGE_SIZE);
+
+        // THEN
+        assertThat(response.getContent()).isNotEmpty();
+        assertThat(response.getContent().get(0).getUserId()).isNotNull();
+        assertThat(TestThreadStatements.count()).isEqualTo(1);
+    }
+
+    public static class TestThreadStatements implements StatementInspector {
+        static final AtomicLong COUNT = new AtomicLong();
+        static volatile Thread thread;
+
+        static void start() {
+            thread = Thread.currentThread();
+            COUNT.set(0);
+        }
+
+        static long count() {
+            return COUNT.get();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() == thread) COUNT.incrementAndGet();
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.project.shopapp.entity.Category;
+import com.project.shopapp.entity.FileDeletion;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.entity.ProductImage;
+import com.project.shopapp.repository.CategoryRepository;
+import com.project.shopapp.repository.FileDeletionRepository;
+import com.project.shopapp.repository.ProductImageRepository;
+import com.project.shopapp.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+// Hang doi xoa file tren H2 that: file chi bi xoa boi worker, khong xoa file con dong tro toi
+@SpringBootTest
+@TestPropertySource(
+        locations = "/test.properties",
+        properties = {
+            "spring.datasource.url=jdbc:h2:mem:filedeletion;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "upload.path=target/test-uploads/file-deletion",
+            "file-deletion.interval=3600000"
+        })
+@DirtiesContext
+public class FileDeletionServiceTest {
+    static final Path UPLOAD_DIR = Path.of("target/test-uploads/file-deletion");
+
+    @Autowired
+    private FileDeletionService fileDeletionService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private FileDeletionRepository fileDeletionRepository;
+
+    private Product product;
+
+    @BeforeEach
+    void initData() throws IOException {
+        fileDeletionRepository.deleteAll();
+        productImageRepository.deleteAll();
+        productRepository.deleteAll();
+
+        if (Files.exists(UPLOAD_DIR)) {
+            try (Stream<Path> files = Files.walk(UPLOAD_DIR)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+            }
+        }
+        Files.createDirectories(UPLOAD_DIR);
+
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        product = productRepository.save(Product.builder()
+                .name("Product")
+                .price(10F)
+                .quantity(100)
+                .isActive(true)
+                .thumbnail(file("thumbnail.png"))
+                .category(category)
+                .build());
+
+        productImageRepository.save(ProductImage.builder()
+                .imageUrl(file("image.png"))
+                .thumbnailUrl(file("image-thumbnail.jpg"))
+                .detailUrl("image.png")
+                .zoomUrl("image.png")
+                .isPrimary(true)
+                .product(product)
+                .build());
+    }
+
+    @Test
+    void deleteProduct_filesEnqueuedThenDeletedByWorker() {
+        // WHEN
+        productService.deleteProduct(product.getId());
+
+        // THEN: request khong dung vao file
+        assertThat(fileDeletionRepository.findAll())
+                .extracting(FileDeletion::getFileName)
+                .containsExactlyInAnyOrder("thumbnail.png", "image.png", "image-thumbnail.jpg");
+        assertThat(UPLOAD_DIR.resolve("image.png")).exists();
+
+        fileDeletionService.processDeletions();
+
+        assertThat(fileDeletionRepository.findAll()).isEmpty();
+        assertThat(UPLOAD_DIR.resolve("thumbnail.png")).doesNotExist();
+        assertThat(UPLOAD_DIR.resolve("image.png")).doesNotExist();
+        assertThat(UPLOAD_DIR.resolve("image-thumbnail.jpg")).doesNotExist();
+    }
+
+    @Test
+    void processDeletions_referencedFile_keptAndDequeued() {
+        // GIVEN
+        fileDeletionService.enqueue(List.of("image.png"));
+
+        // WHEN
+        fileDeletionService.processDeletions();
+
+        // THEN
+        assertThat(fileDeletionRepository.findAll()).isEmpty();
+        assertThat(UPLOAD_DIR.resolve("image.png")).exists();
+    }
+
+    @Test
+    void processDeletions_deleteFails_rescheduled() throws IOException {
+        // GIVEN: thu muc con file ben trong -> khong xoa duoc
+        Files.createDirectories(UPLOAD_DIR.resolve("broken"));
+        file("broken/inner.png");
+        fileDeletionService.enqueue(List.of("broken"));
+
+        // WHEN
+        fileDeletionService.processDeletions();
+
+        // THEN
+        FileDeletion deletion = fileDeletionRepository.findAll().get(0);
+        assertThat(deletion.getAttempts()).isEqualTo(1);
+        assertThat(deletion.getLastError()).isNotBlank();
+        assertThat(deletion.getNextAttemptAt()).isAfter(deletion.getCreatedAt());
+    }
+
+    @Test
+    void scanOrphans_oldUnreferencedFiles_enqueued() throws IOException {
+        // GIVEN
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        age(UPLOAD_DIR.resolve(file("orphan.png")), old);
+        age(UPLOAD_DIR.resolve("image.png"), old);
+        file("recent.png");
+
+        Files.createDirectories(UPLOAD_DIR.resolve("tmp"));
+        age(UPLOAD_DIR.resolve(file("tmp/upload-1.part")), old);
+
+        // WHEN
+        fileDeletionService.scanOrphans();
+
+        // THEN
+        assertThat(fileDeletionRepository.findAll())
+                .extracting(FileDeletion::getFileName)
+                .containsExactly("orphan.png");
+        assertThat(UPLOAD_DIR.resolve("tmp/upload-1.part")).doesNotExist();
+    }
+
+    @Test
+    void scanOrphans_orphanAlreadyQueued_notEnqueuedAgain() throws IOException {
+        // GIVEN: lan quet truoc da dua file vao hang doi, xoa that bai nen dong van con
+        age(UPLOAD_DIR.resolve(file("orphan.png")), Instant.now().minus(Duration.ofDays(2)));
+        fileDeletionService.scanOrphans();
+
+        // WHEN: quet lai (vd. instance khac, lan quet sau)
+        fileDeletionService.scanOrphans();
+
+        // THEN
+        assertThat(fileDeletionRepository.findAll())
+                .extracting(FileDeletion::getFileName)
+                .containsExactly("orphan.png");
+    }
+
+    private String file(String fileName) throws IOException {
+        Files.writeString(UPLOAD_DIR.resolve(fileName), fileName);
+
+        return fileName;
+    }
+
+    private void age(Path file, Instant time) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(time));
+    }
+}
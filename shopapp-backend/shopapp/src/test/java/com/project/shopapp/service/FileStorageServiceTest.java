@@ -0,0 +1,112 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import com.project.shopapp.cache.ImageCache;
+import com.project.shopapp.constant.StorageMode;
+import com.project.shopapp.repository.ProductImageRepository;
+import com.project.shopapp.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+public class FileStorageServiceTest {
+    static final byte[] CONTENT = "same image bytes".getBytes();
+    static final String SHA256 = "f10266197016b8e8842aeba6800100997ce04f35a45a3bff974711e9615ea597";
+
+    @TempDir
+    Path uploadDir;
+
+    private ProductImageRepository productImageRepository;
+    private ProductRepository productRepository;
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void initData() {
+        productImageRepository = mock(ProductImageRepository.class);
+        productRepository = mock(ProductRepository.class);
+        fileStorageService = new FileStorageService(
+                productImageRepository,
+                productRepository,
+                new ImageCache(1024 * 1024, 64 * 1024, new SimpleMeterRegistry()),
+                uploadDir.toString(),
+                StorageMode.CONTENT_ADDRESSED,
+                600);
+    }
+
+    @Test
+    void storeFile_sameContentTwice_oneShardedFile() throws IOException {
+        // WHEN
+        String first = fileStorageService.storeFile(image("a.png"));
+        String second = fileStorageService.storeFile(image("b.png"));
+
+        // THEN
+        assertThat(first).isEqualTo(second).isEqualTo("f1/02/" + SHA256);
+        assertThat(Files.readAllBytes(uploadDir.resolve(first))).isEqualTo(CONTENT);
+        // khong con file tam
+        try (var tempFiles = Files.list(uploadDir.resolve("tmp"))) {
+            assertThat(tempFiles).isEmpty();
+        }
+    }
+
+    @Test
+    void deleteFile_stillReferenced_fileKept() throws IOException {
+        // GIVEN
+        String fileName = storeOld();
+        when(productImageRepository.existsByUrl(fileName)).thenReturn(true);
+
+        // WHEN
+        fileStorageService.deleteFile(fileName);
+
+        // THEN
+        assertThat(uploadDir.resolve(fileName)).exists();
+    }
+
+    @Test
+    void deleteFile_noReference_fileDeleted() throws IOException {
+        // GIVEN
+        String fileName = storeOld();
+
+        // WHEN
+        fileStorageService.deleteFile(fileName);
+
+        // THEN
+        assertThat(uploadDir.resolve(fileName)).doesNotExist();
+    }
+
+    @Test
+    void deleteFile_justReuploaded_fileKept() throws IOException {
+        // GIVEN: upload moi dung lai file nhung dong ProductImage chua commit
+        String fileName = storeOld();
+        fileStorageService.storeFile(image("c.png"));
+
+        // WHEN
+        fileStorageService.deleteFile(fileName);
+
+        // THEN
+        assertThat(uploadDir.resolve(fileName)).exists();
+    }
+
+    // file da luu tu truoc thoi gian cho phep xoa
+    private String storeOld() throws IOException {
+        String fileName = fileStorageService.storeFile(image("a.png"));
+        Files.setLastModifiedTime(
+                uploadDir.resolve(fileName), FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+        return fileName;
+    }
+
+    private MockMultipartFile image(String name) {
+        return new MockMultipartFile("files", name, "image/png", CONTENT);
+    }
+}
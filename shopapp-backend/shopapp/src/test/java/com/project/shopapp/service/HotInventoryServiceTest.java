@@ -0,0 +1,219 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.project.shopapp.cache.ProductCache;
+import com.project.shopapp.entity.Order;
+import com.project.shopapp.entity.OrderDetail;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.exception.AppException;
+import com.project.shopapp.repository.OrderDetailRepository;
+import com.project.shopapp.repository.OrderRepository;
+import com.project.shopapp.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Moi test 1 context moi (create-drop) de san pham dau tien luon co id = 1 nhu cau hinh hot SKU
+@SpringBootTest
+@TestPropertySource(
+        locations = "/test.properties",
+        properties = {
+            "spring.datasource.url=jdbc:h2:mem:hotinventory;MODE=MYSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "inventory.hot-sku.enabled=true",
+            "inventory.hot-sku.product-ids=1",
+            // flush/kiem tra do test goi truc tiep
+            "inventory.hot-sku.flush-interval=3600000",
+            "inventory.hot-sku.check-interval=3600000"
+        })
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class HotInventoryServiceTest {
+    static final int BUYERS = 200;
+    static final int STOCK = 50;
+
+    @Autowired
+    private HotInventoryService hotInventoryService;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Product product;
+    private Order order;
+
+    @BeforeEach
+    void initData() {
+        product = productRepository.save(Product.builder()
+                .name("Hot deal")
+                .price(10F)
+                .quantity(STOCK)
+                .isActive(true)
+                .build());
+
+        order = orderRepository.save(Order.builder()
+                .phoneNumber("0900000000")
+                .address("Ha Noi")
+                .totalMoney(10F)
+                .build());
+    }
+
+    @Test
+    void reserve_concurrentBuyersOfHotProduct_noOversell() throws Exception {
+        // GIVEN
+        hotInventoryService.recover();
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    checkout(1);
+                    succeeded.incrementAndGet();
+                } catch (AppException e) {
+                    // het hang
+                }
+                return null;
+            }));
+        }
+
+        // WHEN
+        start.countDown();
+        for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // THEN
+        assertThat(succeeded.get()).isEqualTo(STOCK);
+        assertThat(inventoryReservationService.available(product)).isZero();
+        // chua flush: DB van giu so luong cu, bo kiem tra van thay khop
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getQuantity()).isEqualTo(STOCK);
+        assertThat(hotInventoryService.checkConsistency()).isEmpty();
+
+        hotInventoryService.flush();
+
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getQuantity()).isZero();
+        assertThat(orderDetailRepository.calculateStock(product.getId())).isZero();
+        assertThat(hotInventoryService.checkConsistency()).isEmpty();
+    }
+
+    @Test
+    void recover_pendingOrderDetails_replayedIntoProducts() {
+        // GIVEN: cac don da commit nhung chua kip flush truoc khi instance chet
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) orderDetailRepository.insertAll(List.of(pendingDetail(2)));
+        });
+
+        // WHEN
+        hotInventoryService.recover();
+
+        // THEN
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getQuantity()).isEqualTo(STOCK - 6);
+        assertThat(inventoryReservationService.available(product)).isEqualTo(STOCK - 6);
+        assertThat(hotInventoryService.checkConsistency()).isEmpty();
+    }
+
+    @Test
+    void flush_twoInstancesAtOnce_eachOrderDetailSubtractedOnce() throws Exception {
+        // GIVEN: don chua flush + 1 service rieng dong vai instance thu hai (khoa trong JVM khong chan duoc)
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) orderDetailRepository.insertAll(List.of(pendingDetail(2)));
+        });
+        HotInventoryService otherInstance = new HotInventoryService(
+                productRepository, orderDetailRepository, productCache, transactionTemplate,
+                true, Set.of(product.getId()), 0, 5000, new SimpleMeterRegistry());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch firstFlushed = new CountDownLatch(1);
+        CountDownLatch commitFirst = new CountDownLatch(1);
+
+        // WHEN: flush thu nhat da tru xong nhung chua commit thi flush thu hai chay
+        Future<?> first = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            hotInventoryService.flush();
+            firstFlushed.countDown();
+            try {
+                commitFirst.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(firstFlushed.await(30, TimeUnit.SECONDS)).isTrue();
+
+        Future<?> second = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> otherInstance.flush()));
+        // cho flush thu hai kip doc order_details truoc khi flush thu nhat commit
+        Thread.sleep(500);
+        commitFirst.countDown();
+
+        first.get(30, TimeUnit.SECONDS);
+        second.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // THEN
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getQuantity()).isEqualTo(STOCK - 6);
+        assertThat(orderDetailRepository.calculateStock(product.getId())).isEqualTo(STOCK - 6);
+    }
+
+    @Test
+    void reserve_transactionRolledBack_counterRestored() {
+        // GIVEN
+        hotInventoryService.recover();
+
+        // WHEN
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryReservationService.reserve(Map.of(product.getId(), 5));
+            status.setRollbackOnly();
+        });
+
+        // THEN
+        assertThat(inventoryReservationService.available(product)).isEqualTo(STOCK);
+        assertThat(hotInventoryService.checkConsistency()).isEmpty();
+    }
+
+    // gia lap OrderService.createOrder: tru bo dem + ghi order_details chua flush trong cung transaction
+    private void checkout(int quantity) {
+        transactionTemplate.executeWithoutResult(status -> {
+            inventoryReservationService.reserve(Map.of(product.getId(), quantity));
+            orderDetailRepository.insertAll(List.of(pendingDetail(quantity)));
+        });
+    }
+
+    private OrderDetail pendingDetail(int quantity) {
+        return OrderDetail.builder()
+                .order(order)
+                .product(product)
+                .price(10F)
+                .numberOfProducts(quantity)
+                .totalMoney(10F * quantity)
+                .isStockFlushed(false)
+                .build();
+    }
+}
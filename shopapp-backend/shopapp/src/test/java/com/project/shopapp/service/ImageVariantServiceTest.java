@@ -0,0 +1,186 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+
+import com.project.shopapp.cache.ImageCache;
+import com.project.shopapp.cache.ProductCache;
+import com.project.shopapp.constant.StorageMode;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.entity.ProductImage;
+import com.project.shopapp.repository.ProductImageRepository;
+import com.project.shopapp.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+public class ImageVariantServiceTest {
+    static final long MAX_PIXELS = 4_000_000;
+    static final int MAX_ATTEMPTS = 2;
+
+    @TempDir
+    Path uploadDir;
+
+    private ProductImageRepository productImageRepository;
+    private ProductRepository productRepository;
+    private ProductCache productCache;
+    private ImageVariantService imageVariantService;
+
+    @BeforeEach
+    void initData() {
+        productImageRepository = mock(ProductImageRepository.class);
+        productRepository = mock(ProductRepository.class);
+        productCache = mock(ProductCache.class);
+
+        FileStorageService fileStorageService = new FileStorageService(
+                productImageRepository,
+                productRepository,
+                new ImageCache(1024 * 1024, 64 * 1024, new SimpleMeterRegistry()),
+                uploadDir.toString(),
+                StorageMode.UUID,
+                600);
+
+        imageVariantService = new ImageVariantService(
+                productImageRepository,
+                productRepository,
+                fileStorageService,
+                productCache,
+                mock(ThreadPoolTaskExecutor.class),
+                100,
+                MAX_PIXELS,
+                MAX_ATTEMPTS);
+    }
+
+    @Test
+    void generateImageVariants_largeImage_resizedVariantsRecorded() throws IOException {
+        // GIVEN: 2000x1000 -> thumbnail 240x120, detail 800x400, zoom 1600x800
+        givenImage("large.png", 2000, 1000);
+        when(productImageRepository.updateVariants(anyLong(), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(1);
+
+        // WHEN
+        imageVariantService.generateImageVariants(1L);
+
+        // THEN
+        ArgumentCaptor<String> thumbnail = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> detail = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> zoom = ArgumentCaptor.forClass(String.class);
+        verify(productImageRepository)
+                .updateVariants(eq(1L), eq("large.png"), thumbnail.capture(), detail.capture(), zoom.capture());
+
+        assertSize(thumbnail.getValue(), 240, 120);
+        assertSize(detail.getValue(), 800, 400);
+        assertSize(zoom.getValue(), 1600, 800);
+        verify(productCache).evictImages(10L);
+    }
+
+    @Test
+    void generateImageVariants_smallImage_originalReused() throws IOException {
+        // GIVEN: nho hon DETAIL -> chi tao thumbnail
+        givenImage("small.png", 500, 500);
+        when(productImageRepository.updateVariants(anyLong(), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(1);
+
+        // WHEN
+        imageVariantService.generateImageVariants(1L);
+
+        // THEN
+        ArgumentCaptor<String> thumbnail = ArgumentCaptor.forClass(String.class);
+        verify(productImageRepository)
+                .updateVariants(eq(1L), eq("small.png"), thumbnail.capture(), eq("small.png"), eq("small.png"));
+        assertSize(thumbnail.getValue(), 240, 240);
+    }
+
+    @Test
+    void generateImageVariants_imageDeletedMeanwhile_variantsDiscarded() throws IOException {
+        // GIVEN: UPDATE khong trung dong nao
+        givenImage("deleted.png", 2000, 1000);
+
+        // WHEN
+        imageVariantService.generateImageVariants(1L);
+
+        // THEN: chi con anh goc trong thu muc
+        try (var files = Files.list(uploadDir)) {
+            assertThat(files.map(file -> file.getFileName().toString())).containsExactly("deleted.png");
+        }
+        verify(productCache, never()).evictImages(any());
+    }
+
+    @Test
+    void generateImageVariants_tooManyPixels_originalRecordedWithoutDecoding() throws IOException {
+        // GIVEN: 2500x2000 = 5M pixel > MAX_PIXELS
+        givenImage("huge.png", 2500, 2000);
+        when(productImageRepository.updateVariants(anyLong(), anyString(), anyString(), anyString(), anyString()))
+                .thenReturn(1);
+
+        // WHEN
+        imageVariantService.generateImageVariants(1L);
+
+        // THEN
+        verify(productImageRepository).updateVariants(1L, "huge.png", "huge.png", "huge.png", "huge.png");
+        try (var files = Files.list(uploadDir)) {
+            assertThat(files.map(file -> file.getFileName().toString())).containsExactly("huge.png");
+        }
+    }
+
+    @Test
+    void generateImageVariants_transientFailure_leftForRetryThenOriginalRecorded() {
+        // GIVEN: file anh khong doc duoc
+        givenProductImage("missing.png");
+
+        // WHEN: lan dau loi -> khong ghi gi, lan quet sau van thu lai
+        imageVariantService.generateImageVariants(1L);
+
+        // THEN
+        verify(productImageRepository, never())
+                .updateVariants(anyLong(), anyString(), anyString(), anyString(), anyString());
+
+        // WHEN: qua MAX_ATTEMPTS -> dung anh goc
+        imageVariantService.generateImageVariants(1L);
+
+        // THEN
+        verify(productImageRepository)
+                .updateVariants(1L, "missing.png", "missing.png", "missing.png", "missing.png");
+    }
+
+    private void givenImage(String fileName, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, "png", uploadDir.resolve(fileName).toFile());
+
+        givenProductImage(fileName);
+    }
+
+    private void givenProductImage(String fileName) {
+        ProductImage productImage = ProductImage.builder()
+                .id(1L)
+                .imageUrl(fileName)
+                .product(Product.builder().id(10L).build())
+                .build();
+        when(productImageRepository.findById(1L)).thenReturn(Optional.of(productImage));
+    }
+
+    private void assertSize(String fileName, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(uploadDir.resolve(fileName).toFile());
+
+        assertThat(fileName).endsWith(".jpg");
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+    }
+}
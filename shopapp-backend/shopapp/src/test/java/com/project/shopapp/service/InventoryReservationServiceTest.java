@@ -0,0 +1,164 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.project.shopapp.entity.Order;
+import com.project.shopapp.entity.OrderDetail;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.exception.AppException;
+import com.project.shopapp.repository.OrderDetailRepository;
+import com.project.shopapp.repository.OrderRepository;
+import com.project.shopapp.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Chay tren H2 that (khong mock repository) de kiem tra UPDATE co dieu kien khi nhieu nguoi mua cung luc
+@SpringBootTest
+@TestPropertySource(
+        locations = "/test.properties",
+        properties = {
+            "spring.datasource.url=jdbc:h2:mem:inventory;MODE=MYSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+            "spring.jpa.hibernate.ddl-auto=create-drop"
+        })
+public class InventoryReservationServiceTest {
+    static final int BUYERS = 200;
+    static final int STOCK = 50;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private HotInventoryService hotInventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        orderDetailRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void reserve_concurrentBuyersOfOneProduct_noOversell() throws Exception {
+        // GIVEN
+        Long productId = saveProduct("Hot deal", STOCK).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    inventoryReservationService.reserve(Map.of(productId, 1));
+                    succeeded.incrementAndGet();
+                } catch (AppException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        // WHEN
+        start.countDown();
+        for (Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // THEN
+        assertThat(succeeded.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(BUYERS - STOCK);
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity())
+                .isZero();
+    }
+
+    @Test
+    void reserve_oneProductShort_nothingReserved() {
+        // GIVEN
+        Long enough = saveProduct("Samsung", 10).getId();
+        Long shortage = saveProduct("Sony", 1).getId();
+
+        // WHEN
+        var exception = assertThrows(
+                AppException.class, () -> inventoryReservationService.reserve(Map.of(enough, 5, shortage, 2)));
+
+        // THEN
+        assertThat(exception.getErrorCode().getCode()).isEqualTo(1801);
+        assertThat(productRepository.findById(enough).orElseThrow().getQuantity()).isEqualTo(10);
+        assertThat(productRepository.findById(shortage).orElseThrow().getQuantity()).isEqualTo(1);
+    }
+
+    @Test
+    void release_success() {
+        // GIVEN
+        Long productId = saveProduct("Samsung", 10).getId();
+        inventoryReservationService.reserve(Map.of(productId, 4));
+
+        // WHEN
+        inventoryReservationService.release(Map.of(productId, 4));
+
+        // THEN
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isEqualTo(10);
+    }
+
+    @Test
+    void recover_hotModeDisabled_pendingOrderDetailsStillReplayed() {
+        // GIVEN: don chua flush tu lan chay truoc khi con bat hot SKU
+        Product product = saveProduct("Hot deal", 10);
+        Order order = orderRepository.save(Order.builder()
+                .phoneNumber("0900000000")
+                .address("Ha Noi")
+                .totalMoney(30F)
+                .build());
+
+        transactionTemplate.executeWithoutResult(status -> orderDetailRepository.insertAll(List.of(OrderDetail.builder()
+                .order(order)
+                .product(product)
+                .price(10F)
+                .numberOfProducts(3)
+                .totalMoney(30F)
+                .isStockFlushed(false)
+                .build())));
+
+        // WHEN
+        hotInventoryService.recover();
+
+        // THEN
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getQuantity()).isEqualTo(7);
+        assertThat(orderDetailRepository.calculateStock(product.getId())).isEqualTo(7);
+        assertThat(hotInventoryService.isHot(product.getId())).isFalse();
+    }
+
+    private Product saveProduct(String name, int quantity) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .price(10F)
+                .quantity(quantity)
+                .isActive(true)
+                .build());
+    }
+}
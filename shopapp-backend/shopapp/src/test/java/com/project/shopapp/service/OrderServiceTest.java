@@ -8,6 +8,7 @@ import static org.mockito.Mockito.*;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import com.project.shopapp.dto.request.OrderCreationRequest;
@@ -155,10 +156,10 @@ public class OrderServiceTest {
         // GIVEN
         when(userRepository.findByPhoneNumber(anyString())).thenReturn(Optional.of(user));
         when(cartRepository.findAllByUserId(anyLong())).thenReturn(List.of(cart, cart2));
+        when(productRepository.reserveQuantities(anyMap())).thenReturn(2L);
         when(orderRepository.save(any())).thenReturn(order);
-        // khong dung gia tri tra ve thi khong mock (productRepository.save, orderDetailRepository.save,
-        // cartRepository.deleteAll)
-        //        when(orderDetailRepository.save(any())).thenReturn(orderDetail);
+        // khong dung gia tri tra ve thi khong mock (orderDetailRepository.insertAll,
+        // cartRepository.deleteAllByIdInBatch)
 
         // WHEN
         var response = orderService.createOrder(request);
@@ -166,10 +167,9 @@ public class OrderServiceTest {
         // THEN
         assertThat(response.getId()).isEqualTo(1);
         assertThat(response.getPhoneNumber()).isEqualTo("1234567890");
-        verify(orderDetailRepository, times(2)).save(any());
-        verify(productRepository, times(1)).save(argThat(product1 -> product1.getQuantity() == 9970));
-        verify(productRepository, times(1)).save(argThat(p -> p.getQuantity() == 19990));
-        verify(cartRepository, times(1)).deleteAll(anyList());
+        verify(orderDetailRepository, times(1)).insertAll(argThat(orderDetails -> orderDetails.size() == 2));
+        verify(productRepository, times(1)).reserveQuantities(Map.of(1L, 30, 2L, 10));
+        verify(cartRepository, times(1)).deleteAllByIdInBatch(List.of(1L, 2L));
     }
 
     @Test
@@ -235,11 +235,14 @@ public class OrderServiceTest {
         cart.setQuantity(100000);
         when(userRepository.findByPhoneNumber(anyString())).thenReturn(Optional.of(user));
         when(cartRepository.findAllByUserId(anyLong())).thenReturn(List.of(cart, cart2));
+        // UPDATE co dieu kien chi tru duoc san pham 2
+        when(productRepository.reserveQuantities(anyMap())).thenReturn(1L);
 
         // WHEN
         var exception = assertThrows(AppException.class, () -> orderService.createOrder(request));
 
         // THEN
         assertThat(exception.getErrorCode().getCode()).isEqualTo(1801);
+        verify(orderRepository, never()).save(any());
     }
 }
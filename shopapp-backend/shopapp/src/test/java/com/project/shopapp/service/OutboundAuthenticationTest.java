@@ -0,0 +1,217 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.project.shopapp.entity.User;
+import com.project.shopapp.repository.UserRepository;
+import com.project.shopapp.repository.httpclient.OutboundIdentityClient;
+import com.project.shopapp.repository.httpclient.OutboundUserClient;
+import feign.FeignException;
+import feign.RetryableException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.client.circuitbreaker.NoFallbackAvailableException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Dang nhap Google/GitHub qua OutboundStubServer: timeout, circuit breaker va bulkhead rieng tung provider
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(
+        locations = "/test.properties",
+        properties = {
+            "spring.datasource.url=jdbc:h2:mem:outbound;MODE=MYSQL;DB_CLOSE_DELAY=-1",
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "spring.cloud.openfeign.client.config.default.read-timeout=500",
+            "resilience4j.circuitbreaker.configs.default.sliding-window-size=4",
+            "resilience4j.circuitbreaker.configs.default.minimum-number-of-calls=4",
+            "resilience4j.bulkhead.configs.default.max-concurrent-calls=2",
+            "resilience4j.bulkhead.configs.default.max-wait-duration=0"
+        })
+@DirtiesContext
+public class OutboundAuthenticationTest {
+    static final OutboundStubServer STUB = startStub();
+
+    @Autowired
+    private AuthenticationService authenticationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void outboundUrls(DynamicPropertyRegistry registry) {
+        registry.add("outbound.identity.google.token-url", STUB::getUrl);
+        registry.add("outbound.identity.google.user-info-url", STUB::getUrl);
+        registry.add("outbound.identity.github.token-url", STUB::getUrl);
+        registry.add("outbound.identity.github.api-url", STUB::getUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @BeforeEach
+    void initData() {
+        STUB.reset();
+        circuitBreakerRegistry.getAllCircuitBreakers().forEach(CircuitBreaker::reset);
+
+        // tai khoan da lien ket san voi user cua OutboundStubServer
+        userRepository.deleteAll();
+        userRepository.save(User.builder()
+                .phoneNumber("g@stub.io")
+                .password("password")
+                .googleAccountId("google-1")
+                .isActive(true)
+                .build());
+        userRepository.save(User.builder()
+                .phoneNumber("0900000001")
+                .password("password")
+                .githubAccountId("github-1")
+                .isActive(true)
+                .build());
+    }
+
+    @Test
+    void outboundAuthenticate_linkedUser_tokenIssuedAndLatencyRecorded() {
+        // WHEN
+        var response = authenticationService.outboundAuthenticate("code");
+
+        // THEN
+        assertThat(response.getToken()).isNotBlank();
+        assertThat(STUB.getRequests(OutboundStubServer.GOOGLE_USER_INFO)).isEqualTo(1);
+        assertThat(meterRegistry
+                        .find("http.client.requests")
+                        .tag("clientName", OutboundIdentityClient.class.getName())
+                        .timer())
+                .isNotNull();
+        assertThat(meterRegistry
+                        .find("http.client.requests")
+                        .tag("clientName", OutboundUserClient.class.getName())
+                        .timer())
+                .isNotNull();
+    }
+
+    @Test
+    void outboundAuthenticateGithub_slowProvider_failsAfterReadTimeout() {
+        // GIVEN
+        STUB.setDelay(Duration.ofSeconds(3));
+        long start = System.nanoTime();
+
+        // WHEN
+        var exception = assertThrows(
+                NoFallbackAvailableException.class, () -> authenticationService.outboundAuthenticateGithub("code"));
+
+        // THEN
+        assertThat(exception.getCause()).isInstanceOf(RetryableException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void outboundAuthenticate_providerFailing_circuitOpensOnlyForThatProvider() throws Exception {
+        // GIVEN: du sliding-window-size lan 5xx
+        STUB.setStatus(500);
+        for (int i = 0; i < 4; i++) {
+            var exception = assertThrows(
+                    NoFallbackAvailableException.class, () -> authenticationService.outboundAuthenticate("code"));
+            assertThat(exception.getCause()).isInstanceOf(FeignException.FeignServerException.class);
+        }
+        int calls = STUB.getRequests(OutboundStubServer.GOOGLE_TOKEN);
+
+        // WHEN
+        var exception = assertThrows(
+                NoFallbackAvailableException.class, () -> authenticationService.outboundAuthenticate("code"));
+
+        // THEN: khong goi Google nua, GitHub van dang nhap duoc
+        assertThat(exception.getCause()).isInstanceOf(CallNotPermittedException.class);
+        assertThat(STUB.getRequests(OutboundStubServer.GOOGLE_TOKEN)).isEqualTo(calls);
+
+        STUB.setStatus(200);
+        mockMvc.perform(post("/auth/outbound/authentication-github").param("code", "code"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("result.token").isNotEmpty());
+    }
+
+    @Test
+    void outboundAuthenticate_circuitOpen_serviceUnavailable() throws Exception {
+        // GIVEN
+        circuitBreakerRegistry.circuitBreaker("google").transitionToOpenState();
+
+        // WHEN, THEN
+        mockMvc.perform(post("/auth/outbound/authentication").param("code", "code"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("code").value(1008));
+    }
+
+    @Test
+    void outboundAuthenticateGithub_moreConcurrentCallsThanBulkhead_rejected() throws Exception {
+        // GIVEN: bulkhead 2 cho, moi lan goi giu cho 300ms
+        STUB.setDelay(Duration.ofMillis(300));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        // WHEN
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(post("/auth/outbound/authentication-github")
+                                .param("code", "code"))
+                        .andReturn()
+                        .getResponse()
+                        .getStatus();
+            }));
+        }
+        start.countDown();
+
+        List<Integer> statuses = new ArrayList<>();
+        for (Future<Integer> future : futures) statuses.add(future.get());
+        executor.shutdown();
+
+        // THEN: 2 request vao duoc bulkhead, 2 request bi tu choi ngay thay vi cho GitHub
+        assertThat(statuses).containsExactlyInAnyOrder(200, 200, 503, 503);
+        assertThat(STUB.getRequests(OutboundStubServer.GITHUB_TOKEN)).isEqualTo(2);
+    }
+
+    private static OutboundStubServer startStub() {
+        try {
+            return new OutboundStubServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
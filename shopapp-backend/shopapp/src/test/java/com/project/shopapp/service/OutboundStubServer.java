@@ -0,0 +1,94 @@
+package com.project.shopapp.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Google/GitHub gia lap tren localhost cho test dang nhap OAuth: tra token va user info co dinh,
+// co the cho cham (delay) hoac tra loi (status) de thu timeout, circuit breaker va bulkhead
+public class OutboundStubServer implements AutoCloseable {
+    static final String GOOGLE_TOKEN = "/token";
+    static final String GOOGLE_USER_INFO = "/oauth2/v1/userinfo";
+    static final String GITHUB_TOKEN = "/login/oauth/access_token";
+    static final String GITHUB_USER = "/user";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    private volatile Duration delay = Duration.ZERO;
+    private volatile int status = 200;
+
+    public OutboundStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+
+        route(GOOGLE_TOKEN, "{\"access_token\":\"google-token\",\"token_type\":\"Bearer\"}");
+        route(GOOGLE_USER_INFO, "{\"id\":\"google-1\",\"email\":\"g@stub.io\",\"name\":\"Google Stub\"}");
+        route(GITHUB_TOKEN, "{\"access_token\":\"github-token\",\"token_type\":\"bearer\"}");
+        route(GITHUB_USER, "{\"id\":\"github-1\",\"login\":\"github-stub\",\"name\":\"GitHub Stub\"}");
+
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void setDelay(Duration delay) {
+        this.delay = delay;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public int getRequests(String path) {
+        return requests.computeIfAbsent(path, key -> new AtomicInteger()).get();
+    }
+
+    public void reset() {
+        delay = Duration.ZERO;
+        status = 200;
+        requests.clear();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void route(String path, String body) {
+        server.createContext(path, exchange -> {
+            requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            try {
+                if (!delay.isZero()) Thread.sleep(delay.toMillis());
+                respond(exchange, status, status == 200 ? body : "{\"error\":\"stub\"}");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.project.shopapp.entity.Category;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.entity.ProductImage;
+import com.project.shopapp.repository.CategoryRepository;
+import com.project.shopapp.repository.ProductImageRepository;
+import com.project.shopapp.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+// Doi anh chinh tren H2 that: luon con dung 1 anh chinh, ke ca khi nhieu request doi cung luc
+@SpringBootTest
+@TestPropertySource(
+        locations = "/test.properties",
+        properties = {
+            "spring.datasource.url=jdbc:h2:mem:primaryimage;MODE=MYSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+            "spring.jpa.hibernate.ddl-auto=create-drop"
+        })
+@DirtiesContext
+public class PrimaryImageSwitchTest {
+    static final int IMAGES = 5;
+    static final int SWITCHES = 20;
+
+    @Autowired
+    private ProductImageService productImageService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    private Product product;
+    private List<ProductImage> images;
+
+    @BeforeEach
+    void initData() {
+        productImageRepository.deleteAll();
+        productRepository.deleteAll();
+
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        product = productRepository.save(Product.builder()
+                .name("Product")
+                .price(10F)
+                .quantity(100)
+                .isActive(true)
+                .category(category)
+                .build());
+
+        images = new ArrayList<>();
+        for (int i = 0; i < IMAGES; i++) {
+            images.add(productImageRepository.save(ProductImage.builder()
+                    .imageUrl("image-" + i + ".png")
+                    .isPrimary(i == 0)
+                    .product(product)
+                    .build()));
+        }
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void updateProductImage_otherImage_onlyThatImagePrimary() {
+        // WHEN
+        var response = productImageService.updateProductImage(images.get(3).getId());
+
+        // THEN
+        assertThat(response.isPrimary()).isTrue();
+        assertThat(primaryImageIds()).containsExactly(images.get(3).getId());
+    }
+
+    @Test
+    void updateProductImage_concurrentSwitches_exactlyOnePrimary() throws Exception {
+        // GIVEN
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // WHEN
+        for (int i = 0; i < SWITCHES; i++) {
+            Long imageId = images.get(i % IMAGES).getId();
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext()
+                        .setAuthentication(new UsernamePasswordAuthenticationToken(
+                                "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+                start.await();
+                return productImageService.updateProductImage(imageId);
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) future.get();
+        executor.shutdown();
+
+        // THEN
+        assertThat(primaryImageIds()).hasSize(1);
+    }
+
+    private List<Long> primaryImageIds() {
+        return productImageRepository.findAllByProductId(product.getId()).stream()
+                .filter(ProductImage::getIsPrimary)
+                .map(ProductImage::getId)
+                .toList();
+    }
+}
@@ -0,0 +1,152 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.project.shopapp.cache.ProductCache;
+import com.project.shopapp.entity.Product;
+import com.project.shopapp.entity.ProductImage;
+import com.project.shopapp.exception.AppException;
+import com.project.shopapp.exception.ErrorCode;
+import com.project.shopapp.mapper.ProductImageMapper;
+import com.project.shopapp.repository.ProductImageRepository;
+import com.project.shopapp.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+public class ProductImageServiceTest {
+    static final Long PRODUCT_ID = 1L;
+
+    private ProductImageRepository productImageRepository;
+    private ProductRepository productRepository;
+    private FileStorageService fileStorageService;
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolTaskExecutor imageUploadExecutor;
+    private ProductImageService productImageService;
+
+    private List<MultipartFile> files;
+
+    @BeforeEach
+    void initData() {
+        productImageRepository = mock(ProductImageRepository.class);
+        productRepository = mock(ProductRepository.class);
+        fileStorageService = mock(FileStorageService.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+
+        imageUploadExecutor = new ThreadPoolTaskExecutor();
+        imageUploadExecutor.setCorePoolSize(3);
+        imageUploadExecutor.setThreadNamePrefix("image-upload-");
+        imageUploadExecutor.initialize();
+
+        productImageService = new ProductImageService(
+                productImageRepository,
+                productRepository,
+                fileStorageService,
+                mock(ImageVariantService.class),
+                mock(ProductImageMapper.class),
+                mock(ProductCache.class),
+                transactionTemplate,
+                imageUploadExecutor);
+
+        files = List.of(image("a.png"), image("b.png"), image("c.png"));
+
+        Product product = Product.builder().id(PRODUCT_ID).build();
+        when(productRepository.existsById(PRODUCT_ID)).thenReturn(true);
+        when(productRepository.findByIdForUpdate(PRODUCT_ID)).thenReturn(Optional.of(product));
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageUploadExecutor.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void upload_threeFiles_storedInParallelThenSavedInOrder() throws Exception {
+        // GIVEN: moi file chi xong khi ca 3 cung dang ghi
+        CountDownLatch allStoring = new CountDownLatch(3);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        when(fileStorageService.storeFile(any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            allStoring.countDown();
+            assertThat(allStoring.await(5, TimeUnit.SECONDS)).isTrue();
+            return "stored-" + invocation.<MultipartFile>getArgument(0).getOriginalFilename();
+        });
+
+        // WHEN
+        productImageService.uploadProductImagesByProductId(PRODUCT_ID, files);
+
+        // THEN
+        assertThat(threads).hasSize(3).allMatch(name -> name.startsWith("image-upload-"));
+
+        ArgumentCaptor<List> saved = ArgumentCaptor.forClass(List.class);
+        verify(productImageRepository).saveAll(saved.capture());
+        List<ProductImage> images = saved.getValue();
+        assertThat(images)
+                .extracting(ProductImage::getImageUrl)
+                .containsExactly("stored-a.png", "stored-b.png", "stored-c.png");
+        assertThat(images).extracting(ProductImage::getIsPrimary).containsExactly(true, false, false);
+    }
+
+    @Test
+    void upload_oneInvalidFile_otherFilesDeletedWithoutTransaction() {
+        // GIVEN
+        when(fileStorageService.storeFile(files.get(0))).thenReturn("stored-a.png");
+        when(fileStorageService.storeFile(files.get(1))).thenThrow(new AppException(ErrorCode.INVALID_FILE));
+        when(fileStorageService.storeFile(files.get(2))).thenReturn("stored-c.png");
+
+        // WHEN
+        var exception = assertThrows(
+                AppException.class, () -> productImageService.uploadProductImagesByProductId(PRODUCT_ID, files));
+
+        // THEN
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.INVALID_FILE);
+        verify(fileStorageService).deleteFile("stored-a.png");
+        verify(fileStorageService).deleteFile("stored-c.png");
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    void upload_limitReachedWhileStoring_storedFilesDeleted() {
+        // GIVEN: kiem tra som con cho, nhung trong transaction da co upload khac chen vao
+        when(fileStorageService.storeFile(any()))
+                .thenAnswer(invocation -> "stored-" + invocation.<MultipartFile>getArgument(0).getOriginalFilename());
+        when(productImageRepository.countByProductId(PRODUCT_ID)).thenReturn(2L, 3L);
+
+        // WHEN
+        var exception = assertThrows(
+                AppException.class, () -> productImageService.uploadProductImagesByProductId(PRODUCT_ID, files));
+
+        // THEN
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.MAX_IMAGE_QUANTITY);
+        verify(productImageRepository, never()).saveAll(any());
+        verify(fileStorageService).deleteFile("stored-a.png");
+        verify(fileStorageService).deleteFile("stored-b.png");
+        verify(fileStorageService).deleteFile("stored-c.png");
+    }
+
+    private MockMultipartFile image(String name) {
+        return new MockMultipartFile("files", name, "image/png", name.getBytes());
+    }
+}
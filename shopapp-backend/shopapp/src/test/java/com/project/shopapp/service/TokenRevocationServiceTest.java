@@ -0,0 +1,45 @@
+package com.project.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import com.project.shopapp.repository.InvalidatedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TokenRevocationServiceTest {
+    private InvalidatedTokenRepository invalidatedTokenRepository;
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void initData() {
+        invalidatedTokenRepository = mock(InvalidatedTokenRepository.class);
+        when(invalidatedTokenRepository.findAllByExpiryTimeAfter(any())).thenReturn(Collections.emptyList());
+
+        tokenRevocationService = new TokenRevocationService(invalidatedTokenRepository);
+        tokenRevocationService.loadRevokedTokens();
+    }
+
+    @Test
+    void isRevokedStrict_revokedOnAnotherInstance_seenBeforeNextSweep() {
+        // GIVEN: instance khac vua ghi dong thu hoi, set cua instance nay chua nap lai
+        when(invalidatedTokenRepository.existsById("jti")).thenReturn(true);
+
+        // WHEN + THEN: request thuong van dung set, refresh/logout doc DB
+        assertThat(tokenRevocationService.isRevoked("jti")).isFalse();
+        assertThat(tokenRevocationService.isRevokedStrict("jti")).isTrue();
+    }
+
+    @Test
+    void isRevokedStrict_notRevoked_false() {
+        // GIVEN
+        when(invalidatedTokenRepository.existsById("jti")).thenReturn(false);
+
+        // WHEN + THEN
+        assertThat(tokenRevocationService.isRevokedStrict("jti")).isFalse();
+    }
+}